@@ -0,0 +1,76 @@
+// Нагрузочный тест чтения постов и лайков (k6, https://k6.io).
+// Запуск: k6 run -e BASE_URL=http://localhost:8080 loadtest/posts.js
+// Сценарий одинаковый для обоих режимов, сравниваются http_req_duration (p95/p99) и http_reqs (запросов в секунду)
+// при VIRTUAL_THREADS_ENABLED=false и VIRTUAL_THREADS_ENABLED=true.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const POSTS = Number(__ENV.POSTS || 200);
+
+export const options = {
+    // Число одновременных клиентов заметно больше пула потоков Tomcat (200 по умолчанию)
+    scenarios: {
+        readers: {
+            executor: 'ramping-vus',
+            startVUs: 50,
+            stages: [
+                { duration: '30s', target: 400 },
+                { duration: '1m', target: 1000 },
+                { duration: '30s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+function json(token) {
+    const headers = { 'Content-Type': 'application/json' };
+    if (token) {
+        headers.Authorization = `Bearer ${token}`;
+    }
+    return { headers };
+}
+
+// Регистрирует пользователя, создает категорию и посты, возвращает токен и id постов
+export function setup() {
+    const username = `load_${Date.now()}`;
+    const register = http.post(`${BASE_URL}/api/auth/register`, JSON.stringify({
+        username, password: 'password', email: `${username}@example.com`, role: 'AUTHOR',
+    }), json());
+    check(register, { 'пользователь зарегистрирован': (r) => r.status === 201 });
+    const userId = register.json('id');
+
+    const login = http.post(`${BASE_URL}/api/auth/login`, JSON.stringify({ username, password: 'password' }), json());
+    const token = login.json('accessToken');
+
+    const category = http.post(`${BASE_URL}/api/categories`, JSON.stringify({ name: username }), json(token));
+    const categoryId = category.json('id');
+
+    const postIds = [];
+    for (let i = 0; i < POSTS; i++) {
+        const post = http.post(`${BASE_URL}/api/posts`, JSON.stringify({
+            title: `Пост ${i}`, content: 'Нагрузочный тест '.repeat(50), authorId: userId, categoryId,
+        }), json(token));
+        postIds.push(post.json('id'));
+    }
+
+    return { token, userId, postIds };
+}
+
+export default function (data) {
+    const params = json(data.token);
+    const postId = data.postIds[Math.floor(Math.random() * data.postIds.length)];
+
+    const responses = http.batch([
+        ['GET', `${BASE_URL}/api/posts?size=20`, null, params],
+        ['GET', `${BASE_URL}/api/posts/${postId}`, null, params],
+        ['GET', `${BASE_URL}/api/comments?postId=${postId}`, null, params],
+        ['GET', `${BASE_URL}/api/likes/count?postId=${postId}`, null, params],
+    ]);
+
+    responses.forEach((r) => check(r, { 'статус 200': (res) => res.status === 200 }));
+}
@@ -0,0 +1,102 @@
+package ru.umagadzhi.blogplatform.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.umagadzhi.blogplatform.entities.Category;
+import ru.umagadzhi.blogplatform.entities.Comment;
+import ru.umagadzhi.blogplatform.entities.Like;
+import ru.umagadzhi.blogplatform.entities.Post;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.repository.CategoryRepository;
+import ru.umagadzhi.blogplatform.repository.CommentRepository;
+import ru.umagadzhi.blogplatform.repository.LikeRepository;
+import ru.umagadzhi.blogplatform.repository.PostRepository;
+import ru.umagadzhi.blogplatform.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*Массовая запись комментариев и лайков через JPA (saveAll в одной транзакции).
+jdbcBatchSize=1 соответствует прежнему поведению с IDENTITY (каждая вставка отдельным запросом),
+jdbcBatchSize=50 — пакетная вставка, которая стала возможна с id из последовательностей.
+Разница заметнее на PostgreSQL по сети (BENCHMARK_DB_URL), чем на встроенной H2.*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchInsertBenchmark {
+    @Param({"1", "50"})
+    public int jdbcBatchSize;
+
+    @Param({"1000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private LikeRepository likeRepository;
+    private User author;
+    private Category category;
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startApplication(
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        postRepository = context.getBean(PostRepository.class);
+        commentRepository = context.getBean(CommentRepository.class);
+        likeRepository = context.getBean(LikeRepository.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        author = userRepository.save(BenchmarkData.user(null, "author"));
+        category = context.getBean(CategoryRepository.class).save(BenchmarkData.category(null, "java"));
+
+        //Каждый пользователь лайкает пост один раз (уникальный индекс post_id, user_id)
+        List<User> likers = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            likers.add(BenchmarkData.user(null, "reader" + i));
+        }
+        users = userRepository.saveAll(likers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Comment> insertComments() {
+        return transactionTemplate.execute(status -> {
+            Post post = postRepository.save(BenchmarkData.post(null, author, category));
+            List<Comment> comments = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                Comment comment = new Comment();
+                comment.setContent("Комментарий " + i);
+                comment.setPost(post);
+                comment.setAuthor(author);
+                comments.add(comment);
+            }
+            return commentRepository.saveAll(comments);
+        });
+    }
+
+    @Benchmark
+    public List<Like> insertLikes() {
+        return transactionTemplate.execute(status -> {
+            //Новый пост на каждый вызов, чтобы лайки не нарушали уникальность
+            Post post = postRepository.save(BenchmarkData.post(null, author, category));
+            List<Like> likes = new ArrayList<>(rows);
+            for (User user : users) {
+                Like like = new Like();
+                like.setPost(post);
+                like.setUser(user);
+                likes.add(like);
+            }
+            return likeRepository.saveAll(likes);
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package ru.umagadzhi.blogplatform.benchmarks;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.umagadzhi.blogplatform.BlogPlatformApplication;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.entities.Category;
+import ru.umagadzhi.blogplatform.entities.Post;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.enums.Role;
+import ru.umagadzhi.blogplatform.jwt.JwtKeyRing;
+import ru.umagadzhi.blogplatform.jwt.JwtUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+//Тестовые данные для бенчмарков
+final class BenchmarkData {
+    //Текст поста средней длины (1000 символов, длиннее прежнего ограничения varchar(255))
+    static final String CONTENT = "Пост о производительности Spring Boot приложений. ".repeat(20);
+
+    private BenchmarkData() {
+    }
+
+    /*Поднимает приложение для бенчмарков с БД. По умолчанию — встроенная H2,
+    PostgreSQL задается переменными окружения BENCHMARK_DB_URL, BENCHMARK_DB_USERNAME, BENCHMARK_DB_PASSWORD.
+    Аргументы командной строки имеют приоритет над application.properties.*/
+    static ConfigurableApplicationContext startApplication(String... extraArgs) {
+        String url = System.getenv("BENCHMARK_DB_URL");
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.flyway.enabled=false", //Схему создает Hibernate (миграции написаны для PostgreSQL)
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--logging.level.root=WARN"));
+        if (url == null) {
+            args.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                    "--blog.reactive.r2dbc.url=r2dbc:h2:mem:///benchmark;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password="));
+        } else {
+            args.addAll(List.of(
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + Objects.requireNonNullElse(System.getenv("BENCHMARK_DB_USERNAME"), "postgres"),
+                    "--spring.datasource.password=" + Objects.requireNonNullElse(System.getenv("BENCHMARK_DB_PASSWORD"), "")));
+        }
+        args.addAll(Arrays.asList(extraArgs));
+
+        return new SpringApplicationBuilder(BlogPlatformApplication.class).run(args.toArray(String[]::new));
+    }
+
+    //JwtUtil со случайным ключом и временем жизни токенов по умолчанию
+    static JwtUtil jwtUtil() {
+        return new JwtUtil(new JwtKeyRing("", ""), 900_000, 1_209_600_000);
+    }
+
+    static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("password");
+        user.setRole(Role.AUTHOR);
+        return user;
+    }
+
+    static Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+
+    static Post post(Long id, User author, Category category) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle("Пост " + id);
+        post.setContent(CONTENT);
+        post.setAuthor(author);
+        post.setCategory(category);
+        return post;
+    }
+
+    //Строки, которые возвращает проекция PostRepository
+    static List<PostResponse> postResponses(int count) {
+        List<PostResponse> posts = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            posts.add(new PostResponse(id, "Пост " + id, CONTENT, id % 10, "author" + id % 10, "author@example.com", 1L, "java"));
+        }
+        return posts;
+    }
+}
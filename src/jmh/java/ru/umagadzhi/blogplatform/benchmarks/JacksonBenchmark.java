@@ -0,0 +1,46 @@
+package ru.umagadzhi.blogplatform.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.umagadzhi.blogplatform.dto.NormalizedPostPage;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Сериализация списка постов тем же ObjectMapper, что собирает Spring Boot: JSON, Smile и страница без повторов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JacksonBenchmark {
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper smileMapper;
+    private List<PostResponse> posts;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        posts = BenchmarkData.postResponses(size);
+    }
+
+    @Benchmark
+    public byte[] serializePosts() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(posts);
+    }
+
+    @Benchmark
+    public byte[] serializePostsSmile() throws JsonProcessingException {
+        return smileMapper.writeValueAsBytes(posts);
+    }
+
+    @Benchmark
+    public byte[] serializeNormalizedPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(NormalizedPostPage.of(posts));
+    }
+}
@@ -0,0 +1,35 @@
+package ru.umagadzhi.blogplatform.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.jwt.JwtUtil;
+
+import java.util.concurrent.TimeUnit;
+
+//Выпуск и проверка JWT
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkData.jwtUtil();
+        user = BenchmarkData.user(1L, "author");
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims parseClaims() {
+        return jwtUtil.parseClaims(token);
+    }
+}
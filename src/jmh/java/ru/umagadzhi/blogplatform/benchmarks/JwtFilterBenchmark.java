@@ -0,0 +1,63 @@
+package ru.umagadzhi.blogplatform.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.jwt.JwtAuthenticationCache;
+import ru.umagadzhi.blogplatform.jwt.JwtAuthenticationFilter;
+import ru.umagadzhi.blogplatform.jwt.JwtUtil;
+import ru.umagadzhi.blogplatform.jwt.TokenDenylist;
+import ru.umagadzhi.blogplatform.jwt.TokenVersionRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/*Полный проход запроса с токеном через JwtAuthenticationFilter.
+Пользователь загружается заглушкой без БД, поэтому в режиме без кэша измеряется только разбор токена
+и сборка Authentication; в реальном приложении к этому добавляется запрос к БД.*/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtFilterBenchmark {
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    @Param({"false", "true"})
+    public boolean statelessPrincipal;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = BenchmarkData.jwtUtil();
+        User user = BenchmarkData.user(1L, "author");
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                user.getUsername(), user.getPassword(), user.getAuthorities());
+        UserDetailsService userDetailsService = username -> userDetails;
+
+        //Кэш размером 0 сразу вытесняет записи — это режим "без кэша"
+        JwtAuthenticationCache cache = new JwtAuthenticationCache(cacheEnabled ? 10_000 : 0, 300_000);
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, cache, new TokenVersionRegistry(null),
+                new TokenDenylist(null, 100_000), new SimpleMeterRegistry(), statelessPrincipal);
+
+        request = new MockHttpServletRequest("GET", "/api/posts");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken(user));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, response, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,49 @@
+package ru.umagadzhi.blogplatform.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.umagadzhi.blogplatform.config.EncoderConfig;
+import ru.umagadzhi.blogplatform.security.BoundedPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+//Стоимость проверки пароля при входе для разных work factor BCrypt и для кодировщика из EncoderConfig (с пулом хеширования)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordEncoderBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"4", "8", "10", "12"})
+    public int strength;
+
+    private PasswordEncoder bcrypt;
+    private String bcryptHash;
+    private BoundedPasswordEncoder configured;
+    private String configuredHash;
+
+    @Setup
+    public void setUp() {
+        bcrypt = new BCryptPasswordEncoder(strength);
+        bcryptHash = bcrypt.encode(PASSWORD);
+
+        configured = new EncoderConfig().passwordEncoder(EncoderConfig.BCRYPT, strength, 0, 100, 5000);
+        configuredHash = configured.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        configured.close();
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return bcrypt.matches(PASSWORD, bcryptHash);
+    }
+
+    @Benchmark
+    public boolean configuredEncoderMatches() {
+        return configured.matches(PASSWORD, configuredHash);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.umagadzhi.blogplatform.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.entities.Category;
+import ru.umagadzhi.blogplatform.entities.Post;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.repository.CategoryRepository;
+import ru.umagadzhi.blogplatform.repository.PostRepository;
+import ru.umagadzhi.blogplatform.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//Запросы PostRepository (приложение поднимается целиком, БД заполняется в @Setup, см. BenchmarkData.startApplication)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostRepositoryBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000"})
+    public int posts;
+
+    private ConfigurableApplicationContext context;
+    private PostRepository postRepository;
+    private long middleId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startApplication();
+
+        postRepository = context.getBean(PostRepository.class);
+        User author = context.getBean(UserRepository.class).save(BenchmarkData.user(null, "author"));
+        Category category = context.getBean(CategoryRepository.class).save(BenchmarkData.category(null, "java"));
+
+        List<Post> batch = new ArrayList<>(posts);
+        for (int i = 0; i < posts; i++) {
+            batch.add(BenchmarkData.post(null, author, category));
+        }
+        List<Post> saved = postRepository.saveAll(batch);
+        middleId = saved.get(saved.size() / 2).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PostResponse> findResponsesPage() {
+        return postRepository.findResponsesPage(middleId, Limit.of(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<PostResponse> findResponsesPageByCategoryName() {
+        return postRepository.findResponsesPageByCategoryName("java", middleId, Limit.of(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Optional<PostResponse> findResponseById() {
+        return postRepository.findResponseById(middleId);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.umagadzhi.blogplatform.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.umagadzhi.blogplatform.dto.PostPage;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.entities.Category;
+import ru.umagadzhi.blogplatform.entities.Post;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.repository.CategoryRepository;
+import ru.umagadzhi.blogplatform.repository.PostRepository;
+import ru.umagadzhi.blogplatform.repository.UserRepository;
+import ru.umagadzhi.blogplatform.services.PostService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*Построение DTO постов при разных размерах страницы:
+- projectRows — создание PostResponse из плоских колонок, как это делает constructor expression в PostRepository;
+- getPostsPage — сервисный слой (курсор, обрезка страницы) вместе с запросом к БД
+  (приложение поднимается целиком, БД заполняется в @Setup, см. BenchmarkData.startApplication).*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostServiceBenchmark {
+    private static final int POSTS = 1000;
+
+    @Param({"10", "100", "500"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private Object[][] rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startApplication();
+
+        postService = context.getBean(PostService.class);
+        User author = context.getBean(UserRepository.class).save(BenchmarkData.user(null, "author"));
+        Category category = context.getBean(CategoryRepository.class).save(BenchmarkData.category(null, "java"));
+
+        List<Post> batch = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            batch.add(BenchmarkData.post(null, author, category));
+        }
+        context.getBean(PostRepository.class).saveAll(batch);
+
+        rows = new Object[size][];
+        for (int i = 0; i < size; i++) {
+            long id = i + 1;
+            rows[i] = new Object[]{id, "Пост " + id, BenchmarkData.CONTENT, id % 10, "author" + id % 10, "author@example.com", 1L, "java"};
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PostResponse> projectRows() {
+        List<PostResponse> posts = new ArrayList<>(rows.length);
+        for (Object[] row : rows) {
+            posts.add(new PostResponse((Long) row[0], (String) row[1], (String) row[2],
+                    (Long) row[3], (String) row[4], (String) row[5], (Long) row[6], (String) row[7]));
+        }
+        return posts;
+    }
+
+    @Benchmark
+    public PostPage getPostsPage() {
+        return postService.getPostsPage(null, null, null, size);
+    }
+}
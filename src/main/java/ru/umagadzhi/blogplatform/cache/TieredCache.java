@@ -0,0 +1,118 @@
+package ru.umagadzhi.blogplatform.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+
+/*Двухуровневый кэш: первый уровень — локальный кэш в памяти процесса,
+второй — внешний (общий для узлов) кэш, например Redis.
+Чтение идет сначала из первого уровня, при промахе — из второго с заполнением первого.
+Запись и инвалидация выполняются на обоих уровнях. Если второй уровень не задан, работает только первый.
+
+Второй уровень (например, Redis с сериализацией JDK) хранит значения в сериализованном виде, поэтому
+кэшировать можно только Serializable DTO (не сущности JPA). Несериализуемое значение остается только в первом
+уровне с предупреждением в логе, чтобы ошибка конфигурации не превращалась в ошибки запросов.*/
+@Slf4j
+public class TieredCache implements Cache {
+    private final Cache first;
+    private final Cache second;
+
+    public TieredCache(Cache first, Cache second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public String getName() {
+        return first.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return first.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = first.get(key);
+
+        if (value == null && second != null) {
+            value = second.get(key);
+            if (value != null) {
+                first.put(key, value.get()); //Поднимаем значение в локальный кэш
+            }
+        }
+
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Значение в кэше " + getName() + " не является " + type.getName());
+        }
+
+        return (T) value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (second == null) {
+            return first.get(key, valueLoader);
+        }
+
+        return first.get(key, () -> {
+            ValueWrapper value = second.get(key);
+            if (value != null) {
+                @SuppressWarnings("unchecked")
+                T cached = (T) value.get();
+                return cached;
+            }
+
+            T loaded = valueLoader.call();
+            if (loaded != null && isSerializable(loaded)) {
+                second.put(key, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (second != null && isSerializable(value)) {
+            second.put(key, value);
+        }
+        first.put(key, value);
+    }
+
+    private boolean isSerializable(Object value) {
+        if (value == null || value instanceof Serializable) {
+            return true;
+        }
+
+        log.warn("Значение {} не Serializable и не сохраняется во втором уровне кэша {}", value.getClass().getName(), getName());
+        return false;
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (second != null) {
+            second.evict(key);
+        }
+        first.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        if (second != null) {
+            second.clear();
+        }
+        first.clear();
+    }
+}
@@ -0,0 +1,38 @@
+package ru.umagadzhi.blogplatform.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Менеджер кэшей, объединяющий локальный менеджер (первый уровень) и необязательный внешний (второй уровень)
+public class TieredCacheManager implements CacheManager {
+    private final CacheManager first;
+    private final CacheManager second;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(CacheManager first, CacheManager second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache firstLevel = first.getCache(cacheName);
+            if (firstLevel == null) {
+                return null;
+            }
+
+            Cache secondLevel = second != null ? second.getCache(cacheName) : null;
+            return new TieredCache(firstLevel, secondLevel);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return first.getCacheNames();
+    }
+}
@@ -0,0 +1,9 @@
+package ru.umagadzhi.blogplatform.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+@Configuration
+@EnableAsync //Включаем выполнение методов @Async в пуле applicationTaskExecutor (в виртуальных потоках, если они включены)
+public class AsyncConfig {
+}
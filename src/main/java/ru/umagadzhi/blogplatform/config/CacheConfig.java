@@ -0,0 +1,69 @@
+package ru.umagadzhi.blogplatform.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.umagadzhi.blogplatform.cache.TieredCacheManager;
+
+import java.time.Duration;
+
+/*Кэширование редко меняющихся данных (посты, категории).
+Пользователи не кэшируются: в сущности хеш пароля и версия токенов, устаревшие копии на других узлах недопустимы.
+Первый уровень — Caffeine в памяти процесса (ограничен по размеру, вытеснение W-TinyLFU).
+Второй уровень подключается объявлением бина CacheManager с именем secondLevelCacheManager (например, RedisCacheManager).
+Значения кэшей — Serializable DTO (PostResponse, CategoryResponse), их можно хранить во втором уровне с сериализацией JDK.
+Инвалидация выполняется методами create/update/delete сервисов через @CachePut/@CacheEvict.
+Локальная инвалидация не видна другим узлам, поэтому записи дополнительно ограничены по времени жизни.
+Посты и список категорий кэшируются под ключом с версией из БД (ETag): их инвалидировать не нужно,
+и ответ с ETag не бывает старее самого ETag ни на одном узле.*/
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    //Имена кэшей
+    public static final String POSTS = "posts";
+    public static final String CATEGORIES = "categories";
+
+    //SpEL-выражение ключа, под которым в кэше категорий хранится список всех категорий (с версией списка)
+    public static final String ALL_CATEGORIES_KEY = "'all:' + #version.eTag()";
+
+    private final CaffeineCacheManager localCacheManager = new CaffeineCacheManager();
+
+    public CacheConfig(@Value("${blog.cache.ttl-ms:600000}") long ttlMs,
+                       @Value("${blog.cache.posts.max-size:10000}") long postsMaxSize,
+                       @Value("${blog.cache.categories.max-size:1000}") long categoriesMaxSize) {
+        localCacheManager.registerCustomCache(POSTS, localCache(postsMaxSize, ttlMs));
+        localCacheManager.registerCustomCache(CATEGORIES, localCache(categoriesMaxSize, ttlMs));
+    }
+
+    @Bean
+    @Primary //Бин второго уровня тоже CacheManager, аннотации кэширования должны использовать этот
+    public CacheManager cacheManager(@Qualifier("secondLevelCacheManager") ObjectProvider<CacheManager> secondLevel) {
+        return new TieredCacheManager(localCacheManager, secondLevel.getIfAvailable());
+    }
+
+    //Метрики локальных кэшей: cache.gets (hit/miss), cache.evictions, cache.size и т.д.
+    @Bean
+    public MeterBinder localCacheMetrics() {
+        return registry -> localCacheManager.getCacheNames().forEach(name ->
+                CaffeineCacheMetrics.monitor(registry,
+                        (com.github.benmanes.caffeine.cache.Cache<?, ?>) localCacheManager.getCache(name).getNativeCache(),
+                        name));
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache(long maxSize, long ttlMs) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats() //Нужно для метрик попаданий и вытеснений
+                .build();
+    }
+}
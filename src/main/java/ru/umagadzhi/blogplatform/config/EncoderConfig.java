@@ -1,15 +1,50 @@
 package ru.umagadzhi.blogplatform.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import ru.umagadzhi.blogplatform.security.BoundedPasswordEncoder;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/*Хеширование паролей.
+Новые хеши сохраняются с префиксом алгоритма ({bcrypt}..., {pbkdf2}...), алгоритм задается blog.password.encoder.
+Старые хеши без префикса — это BCrypt. При входе хеш, созданный другим алгоритмом или с меньшим work factor,
+пересчитывается текущим кодировщиком (UserService.updatePassword).*/
 @Configuration
 public class EncoderConfig {
+    //Идентификаторы алгоритмов (префиксы хешей)
+    public static final String BCRYPT = "bcrypt";
+    public static final String PBKDF2 = "pbkdf2";
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(); // создаем бин для PasswordEncoder
+    public BoundedPasswordEncoder passwordEncoder(@Value("${blog.password.encoder:bcrypt}") String encodingId,
+                                                  @Value("${blog.password.bcrypt-strength:10}") int bcryptStrength,
+                                                  @Value("${blog.password.hashing.threads:0}") int threads,
+                                                  @Value("${blog.password.hashing.queue-capacity:100}") int queueCapacity,
+                                                  @Value("${blog.password.hashing.timeout-ms:5000}") long timeoutMs) {
+        //По умолчанию хешируем не больше паролей одновременно, чем ядер процессора
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(delegatingEncoder(encodingId, bcryptStrength), poolSize, queueCapacity, timeoutMs);
+    }
+
+    public static PasswordEncoder delegatingEncoder(String encodingId, int bcryptStrength) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put(PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        if (!encoders.containsKey(encodingId)) {
+            throw new IllegalArgumentException("Неизвестный алгоритм хеширования паролей: " + encodingId);
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(encodingId, encoders);
+        //Хеши, сохраненные до появления префиксов, проверяем BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+        return encoder;
     }
 }
@@ -0,0 +1,20 @@
+package ru.umagadzhi.blogplatform.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*Метрики приложения.
+HTTP-запросы (http.server.requests), вызовы репозиториев (spring.data.repository.invocations)
+и пул соединений Hikari (hikaricp.connections.*) Spring Boot измеряет сам.
+Сервисы помечены @Timed("blog.service") — их измеряет TimedAspect (теги class и method).
+Перцентили и гистограммы настраиваются в application.properties.*/
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.umagadzhi.blogplatform.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/*Неблокирующий доступ к БД (R2DBC) для потоковых выборок постов и комментариев.
+Основная работа с БД остается на JPA/JDBC. Автоконфигурация R2DBC отключена (spring.autoconfigure.exclude):
+бин ConnectionFactory отключил бы DataSource для JPA. Поэтому пул создается здесь и наружу отдается
+только DatabaseClient. Если blog.reactive.r2dbc.url не задан, адрес берется из spring.datasource.url.*/
+@Configuration
+public class ReactiveDatabaseConfig {
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(@Value("${blog.reactive.r2dbc.url:}") String r2dbcUrl,
+                                                 @Value("${spring.datasource.url:}") String jdbcUrl,
+                                                 @Value("${spring.datasource.username:}") String username,
+                                                 @Value("${spring.datasource.password:}") String password,
+                                                 @Value("${blog.reactive.pool.max-size:10}") int maxSize,
+                                                 @Value("${blog.reactive.pool.max-acquire-time-ms:5000}") long maxAcquireTimeMs) {
+        String url = r2dbcUrl.isBlank() ? toR2dbcUrl(jdbcUrl) : r2dbcUrl;
+
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isBlank()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+
+        //Соединения пула не создаются, пока не выполнен первый запрос
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .maxSize(maxSize)
+                .maxAcquireTime(Duration.ofMillis(maxAcquireTimeMs))
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    //jdbc:postgresql://host:5432/db -> r2dbc:postgresql://host:5432/db
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null || !jdbcUrl.startsWith("jdbc:")) {
+            throw new IllegalStateException("Не задан blog.reactive.r2dbc.url и его нельзя получить из spring.datasource.url");
+        }
+        return "r2dbc:" + jdbcUrl.substring("jdbc:".length());
+    }
+}
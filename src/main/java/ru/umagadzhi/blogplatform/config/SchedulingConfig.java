@@ -0,0 +1,9 @@
+package ru.umagadzhi.blogplatform.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling //Включаем выполнение фоновых задач по расписанию (@Scheduled)
+public class SchedulingConfig {
+}
@@ -54,6 +54,7 @@ public class SecurityConfig {
                 // Отключаем сессии, так как будем использовать JWT (аутентификация без сессий)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()  // Разрешаем неавторизованный доступ к /api/auth/**
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // Проверка состояния и сбор метрик
                         .anyRequest().authenticated() // Все остальные запросы требуют аутентификации
                 ).addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -71,6 +72,9 @@ public class SecurityConfig {
         // Устанавливаем кодировщик паролей, чтобы пароли проверялись с учетом хеширования
         provider.setPasswordEncoder(passwordEncoder);
 
+        // Устаревшие хеши паролей пересчитываются и сохраняются при успешном входе
+        provider.setUserDetailsPasswordService(userService);
+
         // Отключаем скрытие исключения, если пользователь не найден (по умолчанию Spring скрывает эту ошибку)
         provider.setHideUserNotFoundExceptions(false);
 
@@ -86,6 +90,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(List.of("http://localhost:8080"));  // Разрешённые источники (фронтенд)
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE")); // Разрешённые HTTP-методы
         configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type")); // Разрешённые заголовки
+        configuration.setExposedHeaders(List.of("X-Next-Cursor")); // Курсор пагинации должен быть доступен фронтенду
         configuration.setAllowCredentials(true); // Разрешаем передачу куки и заголовков авторизации
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration); // Применяем CORS-правила для всех путей
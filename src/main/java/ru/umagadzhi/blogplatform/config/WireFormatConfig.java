@@ -0,0 +1,31 @@
+package ru.umagadzhi.blogplatform.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/*Компактные бинарные форматы ответов, выбираются клиентом по заголовку Accept:
+application/x-jackson-smile (Smile) и application/cbor (CBOR). Без Accept или с application/json ответ остается JSON.
+Структура ответов та же, что и в JSON, но без текстового представления чисел и с короткими ссылками
+на повторяющиеся имена полей, поэтому меньше байт и меньше работы процессора на сериализацию.
+
+Конвертеры собираются из Jackson2ObjectMapperBuilder Spring Boot, чтобы модули и настройки spring.jackson.*
+совпадали с JSON (конвертеры, которые Spring MVC создает сам, их не учитывают). Spring Boot ставит бины
+HttpMessageConverter на место стандартных конвертеров того же типа.*/
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
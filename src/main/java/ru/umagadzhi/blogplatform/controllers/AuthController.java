@@ -3,6 +3,7 @@ package ru.umagadzhi.blogplatform.controllers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -10,11 +11,15 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import ru.umagadzhi.blogplatform.dto.RefreshTokenRequest;
+import ru.umagadzhi.blogplatform.dto.TokenResponse;
 import ru.umagadzhi.blogplatform.entities.User;
-import ru.umagadzhi.blogplatform.jwt.JwtUtil;
+import ru.umagadzhi.blogplatform.services.TokenService;
 import ru.umagadzhi.blogplatform.services.UserService;
 import ru.umagadzhi.blogplatform.utils.LoginRequest;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auth") //Все эндпоинты будут начинаться с "/api/auth"
 public class AuthController {
@@ -23,13 +28,13 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     //Сервис, который обрабатывает бизнес-логику, связанную с пользователями (поиск, регистрация и т. д.)
     private final UserService userService;
-    //
-    private final JwtUtil jwtUtil;
+    //Сервис выдачи, обновления и отзыва токенов
+    private final TokenService tokenService;
 
-    public AuthController(AuthenticationManager authenticationManager, UserService userService, JwtUtil jwtUtil) {
+    public AuthController(AuthenticationManager authenticationManager, UserService userService, TokenService tokenService) {
         this.authenticationManager = authenticationManager;
         this.userService = userService;
-        this.jwtUtil = jwtUtil;
+        this.tokenService = tokenService;
     }
 
     @PostMapping("/register") // Обрабатывает POST-запрос на "/api/auth/register"
@@ -91,15 +96,57 @@ public class AuthController {
             // Установка аутентифицированного пользователя в контекст
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            // Генерация JWT-токена
-            String jwtToken = jwtUtil.generateToken(loginRequest.getUsername());
+            // Генерация пары токенов (в токены записываются id, роль и версия токенов пользователя)
+            User user = userService.findByUsername(loginRequest.getUsername())
+                    .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
+            TokenResponse tokens = tokenService.issueTokens(user);
 
-            // Возвращаем токен в ответе
-            return ResponseEntity.ok(jwtToken);
+            // Возвращаем короткоживущий access-токен и refresh-токен для его обновления
+            return ResponseEntity.ok(tokens);
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Неверное имя пользователя или пароль");
         } catch (UsernameNotFoundException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Пользователь не найден");
         }
     }
+
+    //Отзыв всех выпущенных токенов текущего пользователя (например, при компрометации)
+    @PostMapping("/revoke") // Обрабатывает POST-запрос на "/api/auth/revoke"
+    public ResponseEntity<?> revokeTokens() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        // Эндпоинты /api/auth/** открыты, поэтому проверяем аутентификацию вручную
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Требуется авторизация");
+        }
+
+        userService.revokeTokens(authentication.getName());
+        return ResponseEntity.ok(Map.of("message", "Все токены пользователя отозваны"));
+    }
+
+    //Новая пара токенов по refresh-токену (access-токен живет недолго)
+    @PostMapping("/refresh") // Обрабатывает POST-запрос на "/api/auth/refresh"
+    public ResponseEntity<?> refreshTokens(@RequestBody RefreshTokenRequest request) {
+        TokenResponse tokens = request.refreshToken() == null ? null : tokenService.refresh(request.refreshToken());
+        if (tokens == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Недействительный refresh-токен");
+        }
+
+        return ResponseEntity.ok(tokens);
+    }
+
+    //Выход: отзываем текущий access-токен и, если передан, refresh-токен
+    @PostMapping("/logout") // Обрабатывает POST-запрос на "/api/auth/logout"
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                    @RequestBody(required = false) RefreshTokenRequest request) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            tokenService.revoke(authHeader.substring(7));
+        }
+
+        if (request != null && request.refreshToken() != null) {
+            tokenService.revoke(request.refreshToken());
+        }
+
+        return ResponseEntity.ok(Map.of("message", "Выход выполнен"));
+    }
 }
@@ -5,8 +5,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.umagadzhi.blogplatform.dto.CategoryRequest;
 import ru.umagadzhi.blogplatform.dto.CategoryResponse;
+import ru.umagadzhi.blogplatform.dto.ResourceVersion;
 import ru.umagadzhi.blogplatform.entities.Category;
 import ru.umagadzhi.blogplatform.services.CategoryService;
 
@@ -66,13 +68,20 @@ public class CategoryController {
 
     /**
      * Получение всех категорий.
+     * Если список не менялся с версии из If-None-Match, возвращается 304 без чтения категорий.
      *
+     * @param request запрос (для проверки If-None-Match и установки ETag).
      * @return список объектов CategoryResponse для всех категорий.
      */
     @GetMapping // Обработчик GET-запросов для получения всех категорий
-    public ResponseEntity<List<CategoryResponse>> getAllCategories() {
+    public ResponseEntity<List<CategoryResponse>> getAllCategories(WebRequest request) {
+        ResourceVersion version = categoryService.getCategoriesVersion();
+        if (request.checkNotModified(version.eTag())) {
+            return null;
+        }
+
         // Вызов сервиса для получения всех категорий
-        List<CategoryResponse> categories = categoryService.getAllCategories();
+        List<CategoryResponse> categories = categoryService.getAllCategories(version);
 
         // Ответ с кодом 200 (ОК), возвращаем список категорий
         return ResponseEntity.ok(categories);
@@ -1,14 +1,21 @@
 package ru.umagadzhi.blogplatform.controllers;
 
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.umagadzhi.blogplatform.dto.BulkItemResult;
+import ru.umagadzhi.blogplatform.dto.CommentPage;
 import ru.umagadzhi.blogplatform.dto.CommentRequest;
 import ru.umagadzhi.blogplatform.dto.CommentResponse;
+import ru.umagadzhi.blogplatform.dto.ResourceVersion;
 import ru.umagadzhi.blogplatform.services.CommentService;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/comments")
@@ -26,27 +33,80 @@ public class CommentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(commentResponse);
     }
 
+    @PostMapping("/bulk")//Пакетное добавление комментариев, результат по каждому элементу в порядке запроса
+    public ResponseEntity<List<BulkItemResult>> createComments(@RequestBody List<CommentRequest> commentRequests) {
+        return ResponseEntity.ok(commentService.createComments(commentRequests));
+    }
+
     @PutMapping()//Обновление комментария
-    public ResponseEntity<Object> updateComment(@RequestBody @Valid CommentRequest commentRequest) {
+    public ResponseEntity<Object> updateComment(@RequestBody @Valid CommentRequest commentRequest, WebRequest request) {
+        //If-Match: комментарий обновляется, только если не менялся с тех пор, как клиент его прочитал, иначе 412
+        Long expectedVersion = null;
+        if (request.getHeader(HttpHeaders.IF_MATCH) != null && commentRequest.getId() != null) {
+            Optional<ResourceVersion> version = commentService.getCommentVersion(commentRequest.getId());
+            if (version.isPresent()) {
+                if (request.checkNotModified(version.get().eTag())) {
+                    return null; //Статус 412 уже выставлен
+                }
+                expectedVersion = version.get().version();
+            }
+        }
+
         //Вызов сервиса для обновления комментария
-        CommentResponse updatedComment = commentService.updateComment(commentRequest);
+        CommentResponse updatedComment = commentService.updateComment(commentRequest, expectedVersion);
 
         if (updatedComment == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Комментарий не найден"));
         }
 
-        return ResponseEntity.ok(updatedComment);
+        //ETag новой версии для следующего обновления с If-Match (checkNotModified для PUT его не выставляет)
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        commentService.getCommentVersion(updatedComment.getId()).ifPresent(version -> {
+            response.eTag(version.eTag());
+            if (version.lastModified() != null) {
+                response.lastModified(version.lastModified());
+            }
+        });
+        return response.body(updatedComment);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getCommentById(@PathVariable Long id) {
-        CommentResponse commentResponse = commentService.getCommentByID(id);
-
-        if (commentResponse == null) {
+    public ResponseEntity<Object> getCommentById(@PathVariable Long id, WebRequest request) {
+        //Условный GET: при совпадении версии 304 без чтения комментария и автора
+        ResourceVersion version = commentService.getCommentVersion(id).orElse(null);
+        if (version == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Комментарий не найден"));
         }
+        if (request.checkNotModified(version.eTag(), version.lastModifiedMillis())) {
+            return null;
+        }
+
+        return ResponseEntity.ok(commentService.getCommentByID(id));
+    }
+
+    @GetMapping()//Комментарии поста постранично
+    public ResponseEntity<List<CommentResponse>> getCommentsByPost(
+            @RequestParam Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CommentService.DEFAULT_PAGE_SIZE) int size) {
+
+        CommentPage page = commentService.getCommentsByPost(postId, cursor, size);
+
+        //Курсор следующей страницы передаем в заголовке, как и для постов
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(PostController.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+
+        return response.body(page.comments());
+    }
+
+    @GetMapping("/preview")//Первые комментарии сразу для нескольких постов (для ленты)
+    public ResponseEntity<Map<Long, List<CommentResponse>>> getCommentsPreview(
+            @RequestParam List<Long> postIds,
+            @RequestParam(defaultValue = "3") int limit) {
 
-        return ResponseEntity.ok(commentResponse);
+        return ResponseEntity.ok(commentService.getFirstCommentsForPosts(postIds, limit));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,55 @@
+package ru.umagadzhi.blogplatform.controllers;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.umagadzhi.blogplatform.dto.PostPage;
+import ru.umagadzhi.blogplatform.services.FeedService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/feed")
+public class FeedController {
+    private final FeedService feedService;
+
+    public FeedController(FeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    @GetMapping() //Лента пользователя: посты авторов и категорий, на которые он подписан, от новых к старым
+    public ResponseEntity<Object> getFeed(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + FeedService.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = "false") boolean normalized) {
+
+        PostPage page = feedService.getFeed(userId, cursor, size);
+
+        //Курсор в заголовке и формат тела — как и в списке постов
+        return PostController.pageResponse(page, normalized);
+    }
+
+    @PostMapping("/authors/{authorId}") //Подписка на автора
+    public ResponseEntity<Object> followAuthor(@PathVariable Long authorId, @RequestParam Long userId) {
+        boolean followed = feedService.followAuthor(userId, authorId);
+        return ResponseEntity.ok(Map.of("message", followed ? "Подписка оформлена" : "Подписка уже была"));
+    }
+
+    @DeleteMapping("/authors/{authorId}") //Отписка от автора
+    public ResponseEntity<Object> unfollowAuthor(@PathVariable Long authorId, @RequestParam Long userId) {
+        boolean unfollowed = feedService.unfollowAuthor(userId, authorId);
+        return ResponseEntity.ok(Map.of("message", unfollowed ? "Подписка отменена" : "Подписки не было"));
+    }
+
+    @PostMapping("/categories/{categoryId}") //Подписка на категорию
+    public ResponseEntity<Object> followCategory(@PathVariable Long categoryId, @RequestParam Long userId) {
+        boolean followed = feedService.followCategory(userId, categoryId);
+        return ResponseEntity.ok(Map.of("message", followed ? "Подписка оформлена" : "Подписка уже была"));
+    }
+
+    @DeleteMapping("/categories/{categoryId}") //Отписка от категории
+    public ResponseEntity<Object> unfollowCategory(@PathVariable Long categoryId, @RequestParam Long userId) {
+        boolean unfollowed = feedService.unfollowCategory(userId, categoryId);
+        return ResponseEntity.ok(Map.of("message", unfollowed ? "Подписка отменена" : "Подписки не было"));
+    }
+}
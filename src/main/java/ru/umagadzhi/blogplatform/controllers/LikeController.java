@@ -1,12 +1,14 @@
 package ru.umagadzhi.blogplatform.controllers;
 
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.umagadzhi.blogplatform.dto.BulkItemResult;
 import ru.umagadzhi.blogplatform.dto.LikeRequest;
-import ru.umagadzhi.blogplatform.dto.LikeResponse;
 import ru.umagadzhi.blogplatform.dto.UserResponse;
+import ru.umagadzhi.blogplatform.services.LikeIngestionQueue;
 import ru.umagadzhi.blogplatform.services.LikeService;
 
 import java.util.List;
@@ -16,21 +18,48 @@ import java.util.Map;
 @RequestMapping("/api/likes")
 public class LikeController {
     private final LikeService likeService;
+    private final LikeIngestionQueue likeIngestionQueue;
 
-    public LikeController(LikeService likeService) {
+    public LikeController(LikeService likeService, LikeIngestionQueue likeIngestionQueue) {
         this.likeService = likeService;
+        this.likeIngestionQueue = likeIngestionQueue;
     }
 
     @PostMapping()//Добавляет лайк к посту
-    public ResponseEntity<LikeResponse> addLike(@RequestBody @Valid LikeRequest likeRequest) {
-        LikeResponse likeResponse = likeService.addLike(likeRequest);
-        return ResponseEntity.status(HttpStatus.CREATED).body(likeResponse);
+    public ResponseEntity<Object> addLike(@RequestBody @Valid LikeRequest likeRequest) {
+        if (likeIngestionQueue.isEnabled()) {
+            return enqueueLike(likeRequest);
+        }
+
+        //Повторный лайк идемпотентен: 201 для нового лайка, 200 с уже существующим
+        LikeService.AddLikeResult result = likeService.addLike(likeRequest);
+        return ResponseEntity.status(result.created() ? HttpStatus.CREATED : HttpStatus.OK).body(result.likeResponse());
+    }
+
+    //Режим отложенной записи: лайк только ставится в очередь, ответ 202 не означает, что он уже сохранен
+    private ResponseEntity<Object> enqueueLike(LikeRequest likeRequest) {
+        LikeIngestionQueue.Result result = likeIngestionQueue.offer(likeRequest);
+
+        if (result == LikeIngestionQueue.Result.REJECTED) {
+            //Очередь переполнена — просим клиента повторить запрос позже
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", "Слишком много запросов, повторите попытку позже"));
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Map.of("message", "Лайк принят в обработку", "status", result.name(), "durable", false));
+    }
+
+    @PostMapping("/bulk")//Пакетное добавление лайков, результат по каждому элементу в порядке запроса
+    public ResponseEntity<List<BulkItemResult>> addLikes(@RequestBody List<LikeRequest> likeRequests) {
+        return ResponseEntity.ok(likeService.addLikes(likeRequests));
     }
 
-    @DeleteMapping()//Удаляет лайк у поста
+    @DeleteMapping()//Удаляет лайк у поста. Повторное удаление не является ошибкой
     public ResponseEntity<Object> deleteLike(@RequestParam Long postId, @RequestParam Long userId) {
-        likeService.removeLike(postId, userId);
-        return ResponseEntity.ok().body(Map.of("message", "лайк удален"));
+        boolean removed = likeService.removeLike(postId, userId);
+        return ResponseEntity.ok().body(Map.of("message", removed ? "лайк удален" : "лайка не было"));
     }
 
     @GetMapping("/count")//Количество лайков у поста
@@ -0,0 +1,29 @@
+package ru.umagadzhi.blogplatform.controllers;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.umagadzhi.blogplatform.services.LiveUpdateHub;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/live")
+public class LiveController {
+    private final LiveUpdateHub liveUpdateHub;
+
+    public LiveController(LiveUpdateHub liveUpdateHub) {
+        this.liveUpdateHub = liveUpdateHub;
+    }
+
+    /*Live-обновления постов (SSE) вместо опроса /api/likes/count и перечитывания комментариев.
+    Одно подключение на клиента для всех нужных ему постов: /api/live?postIds=1,2,3.
+    События "update": {postId, likeCount, newComments}, не чаще одного на пост за окно blog.live.coalesce-window-ms*/
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam List<Long> postIds) {
+        return liveUpdateHub.subscribe(postIds);
+    }
+}
@@ -1,23 +1,47 @@
 package ru.umagadzhi.blogplatform.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.umagadzhi.blogplatform.dto.BulkItemResult;
+import ru.umagadzhi.blogplatform.dto.NormalizedPostPage;
+import ru.umagadzhi.blogplatform.dto.PostPage;
 import ru.umagadzhi.blogplatform.dto.PostRequest;
 import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.dto.PostSummaryPage;
+import ru.umagadzhi.blogplatform.dto.ResourceVersion;
 import ru.umagadzhi.blogplatform.services.PostService;
+import ru.umagadzhi.blogplatform.services.TrendingService;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/posts")
 public class PostController {
+    //Заголовок, в котором возвращается курсор следующей страницы
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    //Представления постов в списках: полное и краткое (excerpt вместо текста)
+    public static final String VIEW_FULL = "full";
+    public static final String VIEW_SUMMARY = "summary";
+    //Размер страницы, которой выгрузка читает посты из БД
+    private static final int EXPORT_PAGE_SIZE = PostService.MAX_PAGE_SIZE;
+
     private final PostService postService;
+    private final TrendingService trendingService;
+    private final ObjectMapper objectMapper;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, TrendingService trendingService, ObjectMapper objectMapper) {
         this.postService = postService;
+        this.trendingService = trendingService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping() // Обработчик POST-запросов для создания поста
@@ -29,29 +53,59 @@ public class PostController {
         return ResponseEntity.status(HttpStatus.CREATED).body(postResponse);
     }
 
+    //Пакетное создание постов (импорт). Ответ содержит результат по каждому элементу в порядке запроса
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkItemResult>> createPosts(@RequestBody List<PostRequest> postRequests) {
+        return ResponseEntity.ok(postService.createPosts(postRequests));
+    }
+
     @PutMapping()// Обработчик PUT-запросов для обновление поста
-    public ResponseEntity<Object> updatePost(@RequestBody @Valid PostRequest postRequest) {
+    public ResponseEntity<Object> updatePost(@RequestBody @Valid PostRequest postRequest, WebRequest request) {
+        //If-Match: обновляем, только если клиент видел текущую версию поста, иначе 412 (защита от потерянных обновлений)
+        Long expectedVersion = null;
+        if (request.getHeader(HttpHeaders.IF_MATCH) != null && postRequest.getId() != null) {
+            Optional<ResourceVersion> version = postService.getPostVersion(postRequest.getId());
+            if (version.isPresent()) {
+                if (request.checkNotModified(version.get().eTag())) {
+                    return null; //ETag не совпал, статус 412 уже выставлен
+                }
+                expectedVersion = version.get().version();
+            }
+        }
+
         //Вызов сервиса для обновления поста
-        PostResponse updatedPost = postService.updatePost(postRequest);
+        PostResponse updatedPost = postService.updatePost(postRequest, expectedVersion);
 
         if (updatedPost == null) {
             //Если не найден пост
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Пост не найден"));
         }
 
-        //Если пост найден
-        return ResponseEntity.ok(updatedPost);
+        //Если пост найден. ETag новой версии нужен клиенту для следующего обновления с If-Match без повторного GET
+        //(checkNotModified для PUT его не выставляет)
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        postService.getPostVersion(updatedPost.getId()).ifPresent(version -> {
+            response.eTag(version.eTag());
+            if (version.lastModified() != null) {
+                response.lastModified(version.lastModified());
+            }
+        });
+        return response.body(updatedPost);
     }
 
     @GetMapping("/{id}") //Получение поста по его ID
-    public ResponseEntity<Object> getPostById(@PathVariable Long id) {
-        PostResponse postResponse = postService.getPostById(id);
-
-        if (postResponse == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Категория не найден"));
+    public ResponseEntity<Object> getPostById(@PathVariable Long id, WebRequest request) {
+        //Сначала только версия поста: если она совпадает с If-None-Match (или не новее If-Modified-Since),
+        //отвечаем 304, не читая и не сериализуя сам пост. ETag и Last-Modified выставляет checkNotModified
+        ResourceVersion version = postService.getPostVersion(id).orElse(null);
+        if (version == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Пост не найден"));
+        }
+        if (request.checkNotModified(version.eTag(), version.lastModifiedMillis())) {
+            return null;
         }
 
-        return ResponseEntity.ok(postResponse);
+        return ResponseEntity.ok(postService.getPostById(id, version));
     }
 
     @DeleteMapping("/{id}")
@@ -74,23 +128,96 @@ public class PostController {
         return ResponseEntity.ok(postResponseList);
     }
 
-    @GetMapping() //Получаем посты по автору, категории или все
-    public ResponseEntity<List<PostResponse>> getPostByFilter(
+    @GetMapping() //Получаем посты по автору, категории или все (постранично)
+    public ResponseEntity<Object> getPostByFilter(
             @RequestParam(required = false) String category,
-            @RequestParam(required = false) String author) {
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = "false") boolean normalized,
+            @RequestParam(defaultValue = VIEW_FULL) String view) {
+
+        if (isSummary(view)) {
+            PostSummaryPage page = postService.getPostSummariesPage(category, author, cursor, size);
+            return pageResponse(page.nextCursor(), normalized ? NormalizedPostPage.ofSummaries(page.posts()) : page.posts());
+        }
+
+        PostPage page = postService.getPostsPage(category, author, cursor, size);
+        return pageResponse(page, normalized);
+    }
+
+    /*Ответ со страницей постов. Курсор следующей страницы передаем в заголовке, тело ответа — список постов,
+    а с normalized=true — NormalizedPostPage, где каждый автор и категория передаются один раз на страницу*/
+    static ResponseEntity<Object> pageResponse(PostPage page, boolean normalized) {
+        return pageResponse(page.nextCursor(), normalized ? NormalizedPostPage.of(page.posts()) : page.posts());
+    }
+
+    private static ResponseEntity<Object> pageResponse(String nextCursor, Object body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
 
-        List<PostResponse> posts;
+        return response.body(body);
+    }
+
+    //view=summary: вместо полного текста поста — excerpt, сохраненный при записи (content из БД не читается)
+    private static boolean isSummary(String view) {
+        return switch (view) {
+            case VIEW_FULL -> false;
+            case VIEW_SUMMARY -> true;
+            default -> throw new IllegalArgumentException("Параметр view должен быть " + VIEW_FULL + " или " + VIEW_SUMMARY);
+        };
+    }
+
+    @GetMapping("/search") //Полнотекстовый поиск по заголовку и тексту постов
+    public ResponseEntity<Object> searchPosts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = VIEW_FULL) String view) {
 
-        if (category != null && author != null) {
-            posts = postService.getPostsByCategoryNameAndAuthor(category, author);
-        } else if (category != null) {
-            posts = postService.getPostsByCategory(category);
-        } else if (author != null) {
-            posts = postService.getPostsByAuthor(author);
-        } else {
-            posts = postService.getAllPosts();
+        if (isSummary(view)) {
+            return ResponseEntity.ok(postService.searchPostSummaries(query, page, size));
         }
+        return ResponseEntity.ok(postService.searchPosts(query, page, size));
+    }
+
+    @GetMapping("/trending") //Популярные посты (по недавним лайкам и комментариям), все или в категории
+    public ResponseEntity<List<PostResponse>> getTrendingPosts(
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "" + TrendingService.DEFAULT_LIMIT) int limit) {
+
+        return ResponseEntity.ok(trendingService.getTrending(category, limit));
+    }
+
+    /*Потоковая выгрузка всех постов в формате NDJSON (один JSON-объект на строку).
+    Посты читаются из БД страницами по EXPORT_PAGE_SIZE и сразу пишутся в ответ,
+    поэтому расход памяти не зависит от количества постов в таблице.*/
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPosts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String author) {
+
+        StreamingResponseBody body = outputStream -> {
+            String cursor = null;
+
+            do {
+                PostPage page = postService.getPostsPage(category, author, cursor, EXPORT_PAGE_SIZE);
+
+                for (PostResponse post : page.posts()) {
+                    outputStream.write(objectMapper.writeValueAsBytes(post));
+                    outputStream.write('\n');
+                }
+
+                //Отдаем клиенту очередную порцию (chunked transfer encoding)
+                outputStream.flush();
+                cursor = page.nextCursor();
+            } while (cursor != null);
+        };
 
-        return ResponseEntity.ok(posts);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 }
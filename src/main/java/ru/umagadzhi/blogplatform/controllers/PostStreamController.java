@@ -0,0 +1,37 @@
+package ru.umagadzhi.blogplatform.controllers;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import ru.umagadzhi.blogplatform.dto.CommentResponse;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.repository.ReactivePostRepository;
+import ru.umagadzhi.blogplatform.services.CommentService;
+import ru.umagadzhi.blogplatform.services.PostService;
+
+/*Потоковая выдача постов и комментариев через R2DBC: NDJSON (по умолчанию) или SSE (Accept: text/event-stream).
+Метод контроллера сразу возвращает Flux и освобождает поток Tomcat, элементы пишутся в ответ по мере чтения из БД.
+Запись в сокет переносится на boundedElastic, чтобы медленный клиент не блокировал потоки драйвера R2DBC.*/
+@RestController
+@RequestMapping("/api/stream")
+public class PostStreamController {
+    private final ReactivePostRepository reactivePostRepository;
+
+    public PostStreamController(ReactivePostRepository reactivePostRepository) {
+        this.reactivePostRepository = reactivePostRepository;
+    }
+
+    @GetMapping(value = "/posts", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<PostResponse> streamPosts(@RequestParam(required = false) String category,
+                                          @RequestParam(required = false) String author) {
+        return reactivePostRepository.streamPosts(category, author, PostService.MAX_PAGE_SIZE)
+                .publishOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping(value = "/posts/{postId}/comments", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<CommentResponse> streamComments(@PathVariable Long postId) {
+        return reactivePostRepository.streamComments(postId, CommentService.MAX_PAGE_SIZE)
+                .publishOn(Schedulers.boundedElastic());
+    }
+}
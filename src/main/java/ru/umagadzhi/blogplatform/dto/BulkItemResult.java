@@ -0,0 +1,20 @@
+package ru.umagadzhi.blogplatform.dto;
+
+/*Результат обработки одного элемента пакетного запроса.
+index — позиция элемента в запросе, id — id созданной записи (для CREATED), error — причина отказа (для FAILED).*/
+public record BulkItemResult(int index, Status status, Long id, String error) {
+
+    public enum Status { CREATED, DUPLICATE, FAILED }
+
+    public static BulkItemResult created(int index, Long id) {
+        return new BulkItemResult(index, Status.CREATED, id, null);
+    }
+
+    public static BulkItemResult duplicate(int index) {
+        return new BulkItemResult(index, Status.DUPLICATE, null, null);
+    }
+
+    public static BulkItemResult failed(int index, String error) {
+        return new BulkItemResult(index, Status.FAILED, null, error);
+    }
+}
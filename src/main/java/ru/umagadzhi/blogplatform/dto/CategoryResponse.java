@@ -6,12 +6,14 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.Serializable;
+
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 //Класс описывающий ответы для CRUD операций категории
-public class CategoryResponse {
+public class CategoryResponse implements Serializable { //Кэшируется сама и в составе постов
     private Long id;
     private String name;
 }
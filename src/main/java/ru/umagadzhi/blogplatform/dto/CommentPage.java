@@ -0,0 +1,6 @@
+package ru.umagadzhi.blogplatform.dto;
+
+import java.util.List;
+
+//Страница комментариев при keyset-пагинации. nextCursor равен null, если страница последняя
+public record CommentPage(List<CommentResponse> comments, String nextCursor) {}
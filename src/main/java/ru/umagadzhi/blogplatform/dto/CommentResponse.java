@@ -14,4 +14,9 @@ public class CommentResponse {
     private Long id;
     private String content;
     private UserResponse author;
+
+    //Плоский конструктор для JPQL constructor expression: комментарий и автор выбираются одним запросом
+    public CommentResponse(Long id, String content, Long authorId, String authorUsername, String authorEmail) {
+        this(id, content, new UserResponse(authorId, authorUsername, authorEmail));
+    }
 }
@@ -0,0 +1,6 @@
+package ru.umagadzhi.blogplatform.dto;
+
+import java.util.List;
+
+//Обновление поста для подписчиков SSE: текущее число лайков и комментарии, добавленные с прошлого обновления
+public record LiveUpdate(Long postId, long likeCount, List<CommentResponse> newComments) {}
@@ -0,0 +1,59 @@
+package ru.umagadzhi.blogplatform.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*Страница постов без повторов: пост ссылается на автора и категорию по id, а сами авторы и категории
+передаются один раз на страницу в includes. В обычном ответе (список PostResponse) автор с email и категория
+повторяются в каждом посте.*/
+public record NormalizedPostPage(List<Item> posts, Includes includes) {
+
+    //Пост без вложенных автора и категории. У полного поста есть content, у краткого (view=summary) — excerpt
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Item(Long id, String title, String content, String excerpt, Long authorId, Long categoryId) {}
+
+    //Авторы и категории постов страницы, каждый один раз, в порядке первого упоминания
+    public record Includes(List<UserResponse> authors, List<CategoryResponse> categories) {}
+
+    public static NormalizedPostPage of(List<PostResponse> posts) {
+        Builder builder = new Builder(posts.size());
+        for (PostResponse post : posts) {
+            builder.add(new Item(post.getId(), post.getTitle(), post.getContent(), null,
+                    post.getAuthor().getId(), post.getCategory().getId()), post.getAuthor(), post.getCategory());
+        }
+        return builder.build();
+    }
+
+    public static NormalizedPostPage ofSummaries(List<PostSummaryResponse> posts) {
+        Builder builder = new Builder(posts.size());
+        for (PostSummaryResponse post : posts) {
+            builder.add(new Item(post.getId(), post.getTitle(), null, post.getExcerpt(),
+                    post.getAuthor().getId(), post.getCategory().getId()), post.getAuthor(), post.getCategory());
+        }
+        return builder.build();
+    }
+
+    private static final class Builder {
+        private final List<Item> items;
+        private final Map<Long, UserResponse> authors = new LinkedHashMap<>();
+        private final Map<Long, CategoryResponse> categories = new LinkedHashMap<>();
+
+        Builder(int size) {
+            items = new ArrayList<>(size);
+        }
+
+        void add(Item item, UserResponse author, CategoryResponse category) {
+            items.add(item);
+            authors.putIfAbsent(author.getId(), author);
+            categories.putIfAbsent(category.getId(), category);
+        }
+
+        NormalizedPostPage build() {
+            return new NormalizedPostPage(items, new Includes(List.copyOf(authors.values()), List.copyOf(categories.values())));
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package ru.umagadzhi.blogplatform.dto;
+
+import java.util.List;
+
+//Страница постов при keyset-пагинации. nextCursor равен null, если страница последняя
+public record PostPage(List<PostResponse> posts, String nextCursor) {}
@@ -1,20 +1,30 @@
 package ru.umagadzhi.blogplatform.dto;
 
-import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.io.Serializable;
+
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 //Класс описывающий ответы для CRUD операций постов
-public class PostResponse {
+public class PostResponse implements Serializable { //Хранится в кэше, в том числе во внешнем втором уровне
     private Long id;
     private String title;
     private String content;
     private UserResponse author; //Используем DTO классы
     private CategoryResponse category; //Используем DTO классы
+
+    //Плоский конструктор для JPQL constructor expression: пост, автор и категория выбираются одним запросом
+    public PostResponse(Long id, String title, String content,
+                        Long authorId, String authorUsername, String authorEmail,
+                        Long categoryId, String categoryName) {
+        this(id, title, content,
+                new UserResponse(authorId, authorUsername, authorEmail),
+                new CategoryResponse(categoryId, categoryName));
+    }
 }
@@ -0,0 +1,6 @@
+package ru.umagadzhi.blogplatform.dto;
+
+import java.util.List;
+
+//Страница кратких постов (view=summary), курсор как в PostPage
+public record PostSummaryPage(List<PostSummaryResponse> posts, String nextCursor) {}
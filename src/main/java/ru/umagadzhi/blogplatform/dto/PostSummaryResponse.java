@@ -0,0 +1,28 @@
+package ru.umagadzhi.blogplatform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+//Краткий пост для списков (view=summary): вместо полного текста — excerpt, сохраненный при записи поста
+public class PostSummaryResponse {
+    private Long id;
+    private String title;
+    private String excerpt;
+    private UserResponse author;
+    private CategoryResponse category;
+
+    //Плоский конструктор для JPQL constructor expression, как у PostResponse
+    public PostSummaryResponse(Long id, String title, String excerpt,
+                               Long authorId, String authorUsername, String authorEmail,
+                               Long categoryId, String categoryName) {
+        this(id, title, excerpt,
+                new UserResponse(authorId, authorUsername, authorEmail),
+                new CategoryResponse(categoryId, categoryName));
+    }
+}
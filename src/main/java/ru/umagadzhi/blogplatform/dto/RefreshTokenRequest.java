@@ -0,0 +1,4 @@
+package ru.umagadzhi.blogplatform.dto;
+
+//Запрос на обновление пары токенов или на выход из системы
+public record RefreshTokenRequest(String refreshToken) {}
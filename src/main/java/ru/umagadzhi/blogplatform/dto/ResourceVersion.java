@@ -0,0 +1,22 @@
+package ru.umagadzhi.blogplatform.dto;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+//Версия ресурса для условных запросов: строгий ETag, Last-Modified (null — не отдается)
+//и version — версия самой сущности, с которой сверяется If-Match при обновлении
+public record ResourceVersion(long version, String eTag, Instant lastModified) {
+
+    //Строгий ETag из версий всех сущностей, от которых зависит ответ, например "3.1"
+    public static String eTag(long... versions) {
+        return Arrays.stream(versions)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(".", "\"", "\""));
+    }
+
+    //Last-Modified в миллисекундах для WebRequest.checkNotModified (-1 — без Last-Modified)
+    public long lastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.toEpochMilli();
+    }
+}
@@ -0,0 +1,4 @@
+package ru.umagadzhi.blogplatform.dto;
+
+//Пара токенов, выдаваемая при входе и при обновлении. expiresIn — время жизни access-токена в секундах
+public record TokenResponse(String accessToken, String refreshToken, String tokenType, long expiresIn) {}
@@ -5,12 +5,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.io.Serializable;
+
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 //DTO для ответа при получении пользователя
-public class UserResponse {
+public class UserResponse implements Serializable { //Входит в закэшированные посты
     private Long id;
     private String username;
     private String email;
@@ -6,7 +6,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -17,12 +19,23 @@ import java.util.Set;
 @Getter
 @Setter
 public class Category {
+    //Id из последовательности, выделяемой блоками по 50 (pooled), как и у остальных сущностей
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categories_seq")
+    @SequenceGenerator(name = "categories_seq", sequenceName = "categories_seq", allocationSize = 50)
     private Long id;
 
     private String name;
 
+    //Версия и время изменения категории входят в ETag категорий и постов (название категории есть в PostResponse)
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     @OneToMany(mappedBy = "category") // Сохраняем связь с постами
     @JsonIgnore //Чтобы исключить из вывода в ответе в json. Игнорируем список постов, чтобы избежать рекурсии
     private Set<Post> posts = new HashSet<>();
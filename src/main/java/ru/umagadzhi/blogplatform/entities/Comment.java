@@ -5,6 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
 @Table(name = "comments")
@@ -13,12 +16,24 @@ import lombok.Setter;
 @Getter
 @Setter
 public class Comment {
+    //Id из последовательности, выделяемой блоками по 50 (pooled): Hibernate не обращается к БД за каждым id
+    //и может отправлять вставки пакетами (с IDENTITY пакетная вставка невозможна)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_seq")
+    @SequenceGenerator(name = "comments_seq", sequenceName = "comments_seq", allocationSize = 50)
     private Long id;
 
     private String content;
 
+    //Версия (оптимистическая блокировка), из нее строится ETag комментария
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     @ManyToOne
     @JoinColumn(name = "post_id")
     private Post post;
@@ -7,14 +7,18 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "likes")
+//Пользователь может лайкнуть пост только один раз. Уникальный индекс также нужен для INSERT ... ON CONFLICT
+@Table(name = "likes", uniqueConstraints = @UniqueConstraint(name = "uk_likes_post_user", columnNames = {"post_id", "user_id"}))
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 public class Like {
+    //Id из последовательности, выделяемой блоками по 50 (pooled): Hibernate не обращается к БД за каждым id
+    //и может отправлять вставки пакетами (с IDENTITY пакетная вставка невозможна)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "likes_seq")
+    @SequenceGenerator(name = "likes_seq", sequenceName = "likes_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -5,7 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Length;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -18,12 +22,31 @@ import java.util.Set;
 @Getter
 @Setter
 public class Post {
+    //Id из последовательности, выделяемой блоками по 50 (pooled): Hibernate не обращается к БД за каждым id
+    //и может отправлять вставки пакетами (с IDENTITY пакетная вставка невозможна)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = 50)
     private Long id;
 
     private String title;
+    //Текст без ограничения длины: text в PostgreSQL (V6), самый длинный varchar в других БД (H2 в тестах)
+    @Column(length = Length.LONG32)
     private String content;
+    //Краткое содержание для списков (view=summary), вычисляется из content при записи поста (Excerpts.of)
+    private String excerpt;
+
+    //Версия для оптимистической блокировки: увеличивается Hibernate при каждом обновлении через JPA.
+    //Отдается клиентам в ETag и сверяется с If-Match. Счетчик лайков обновляется запросами мимо версии:
+    //он не входит в PostResponse и не должен делать недействительными ETag и If-Match клиентов
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    //Время последнего изменения (Last-Modified)
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
 
     @ManyToOne
     @JoinColumn(name = "author_id") //Добавляем ссылку на автора/пользователя
@@ -33,6 +56,15 @@ public class Post {
     @JoinColumn(name = "category_id") // Добавляем ссылку на категорию
     private Category category;
 
+    //Денормализованный счетчик лайков. Обновляется пакетно через LikeCounter и сверяется с таблицей likes по расписанию.
+    //Hibernate его не пишет (новый пост получает 0 из значения по умолчанию): иначе сохранение загруженного поста
+    //перезаписало бы счетчик старым значением и потеряло сброс LikeCounter, сделанный между чтением и сохранением
+    @ColumnDefault("0")
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false)
+    private long likeCount;
+
+    //Коллекция нужна только для каскадного удаления. Для чтения комментариев используйте
+    //постраничные запросы CommentRepository, чтобы не загружать все комментарии поста в контекст
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments = new ArrayList<>();
 
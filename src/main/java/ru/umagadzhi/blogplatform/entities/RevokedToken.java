@@ -0,0 +1,27 @@
+package ru.umagadzhi.blogplatform.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+//Отозванный до истечения срока токен (выход из системы, использованный refresh-токен)
+@Entity
+@Table(name = "revoked_tokens")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class RevokedToken {
+    //jti токена
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    //Срок действия токена: после него запись больше не нужна
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -1,10 +1,12 @@
 package ru.umagadzhi.blogplatform.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,8 +23,10 @@ import java.util.Collections;
 @Setter
 //Класс описывает пользователей
 public class User implements UserDetails {
+    //Id из последовательности, выделяемой блоками по 50 (pooled), как и у остальных сущностей
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     private String username;
@@ -32,6 +36,12 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role; // Роль пользователя (AUTHOR, ADMIN, READER)
 
+    // Версия токенов пользователя. Увеличивается при отзыве токенов: токены со старой версией перестают приниматься
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
     //Получаем роль пользователя
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
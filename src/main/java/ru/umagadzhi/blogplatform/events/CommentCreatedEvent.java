@@ -0,0 +1,4 @@
+package ru.umagadzhi.blogplatform.events;
+
+//К посту добавлен комментарий
+public record CommentCreatedEvent(Long postId, Long commentId) {}
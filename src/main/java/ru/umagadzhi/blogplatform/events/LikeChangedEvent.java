@@ -0,0 +1,4 @@
+package ru.umagadzhi.blogplatform.events;
+
+//Лайк поста добавлен (delta = 1) или снят (delta = -1). Публикуется только если строка в likes действительно изменилась
+public record LikeChangedEvent(Long postId, int delta) {}
@@ -0,0 +1,4 @@
+package ru.umagadzhi.blogplatform.events;
+
+//Пост перенесен в другую категорию. Публикуется PostService, обрабатывается после коммита транзакции (рейтинг популярных постов)
+public record PostCategoryChangedEvent(Long postId, Long categoryId) {}
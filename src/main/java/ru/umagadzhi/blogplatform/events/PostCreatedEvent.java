@@ -0,0 +1,4 @@
+package ru.umagadzhi.blogplatform.events;
+
+//Создан новый пост. Публикуется PostService, обрабатывается после коммита транзакции (рассылка по лентам подписчиков)
+public record PostCreatedEvent(Long postId, Long authorId, Long categoryId) {}
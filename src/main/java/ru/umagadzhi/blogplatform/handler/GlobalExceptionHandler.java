@@ -1,10 +1,15 @@
 package ru.umagadzhi.blogplatform.handler;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -13,6 +18,7 @@ import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice  // Аннотация, которая говорит Spring, что этот класс является обработчиком исключений для REST API.
 // Все исключения, которые выбрасываются в контроллерах, будут перехвачены этим классом.
@@ -43,12 +49,49 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
     }
 
+    @ExceptionHandler(EntityNotFoundException.class) // Запрошенная или упомянутая в запросе сущность не существует
+    // (например, лайк на несуществующий пост — нарушение внешнего ключа)
+    public ResponseEntity<Map<String, String>> handleEntityNotFound(EntityNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class) // Сущность изменили после того, как клиент ее прочитал
+    // (не совпала версия из If-Match или параллельное обновление) — изменения клиента не применяются
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("error", "Данные были изменены другим запросом, получите актуальную версию и повторите"));
+    }
+
+    @ExceptionHandler(ConcurrencyFailureException.class) // Временный конфликт с параллельным запросом
+    // (например, лайк одновременно ставят и снимают) — ошибки клиента нет, повтор запроса пройдет
+    public ResponseEntity<Map<String, String>> handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     @ExceptionHandler(IllegalStateException.class) // Этот метод обрабатывает исключение IllegalStateException.
-    //Будут использоваться при попытке лайкнуть уже лайкнутый пост
     public ResponseEntity<Map<String, String>> handleIllegalStateException(IllegalStateException ex) {
         return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
     }
 
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    // Не удалось получить соединение из пула за connection-timeout (пул исчерпан или БД недоступна).
+    // Просим клиента повторить запрос позже, вместо ответа 500.
+    public ResponseEntity<Map<String, String>> handleDatabaseUnavailable(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Сервис временно перегружен, повторите запрос позже"));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    // Пул хеширования паролей перегружен (всплеск входов/регистраций) — просим повторить позже.
+    public ResponseEntity<Map<String, String>> handleRejectedExecution(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Сервис временно перегружен, повторите запрос позже"));
+    }
+
     /**
      * Обрабатывает исключения, возникающие при валидации входных данных (@Valid).
      * Например, если поле @NotBlank в DTO окажется пустым.
@@ -0,0 +1,124 @@
+package ru.umagadzhi.blogplatform.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*Кэш уже проверенных токенов и пользователей, найденных по ним.
+Ключ — SHA-256 от токена (сам токен в памяти не храним). Размер кэша ограничен,
+а запись живет не дольше jwt.cache.ttl-ms и не дольше срока действия самого токена.
+При попадании в кэш фильтру не нужно ни проверять подпись, ни обращаться к БД.
+Метрики кэша публикуются под именем jwt (cache.gets, cache.evictions, cache.size).*/
+@Component
+public class JwtAuthenticationCache implements MeterBinder {
+
+    //Закэшированный пользователь, jti, id пользователя и версия токена (для проверки отзыва) и момент истечения токена
+    public record CachedAuthentication(UserDetails userDetails, String tokenId, long userId, int tokenVersion,
+                                       long expiresAtMillis) {}
+
+    private final Cache<String, CachedAuthentication> cache;
+    private final long maxTtlNanos;
+
+    public JwtAuthenticationCache(@Value("${jwt.cache.max-size:10000}") long maxSize,
+                                  @Value("${jwt.cache.ttl-ms:300000}") long maxTtlMs) {
+        this.maxTtlNanos = TimeUnit.MILLISECONDS.toNanos(maxTtlMs);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedAuthentication>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedAuthentication value, long currentTime) {
+                        return ttlNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+                        return ttlNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats() //Нужно для метрик попаданий и вытеснений
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "jwt");
+    }
+
+    /**
+     * Возвращает пользователя для ранее проверенного токена.
+     *
+     * @param token JWT токен.
+     * @return запись кэша или null, если токена нет в кэше или он уже истек.
+     */
+    public CachedAuthentication get(String token) {
+        CachedAuthentication cached = cache.getIfPresent(hash(token));
+
+        //Дополнительная проверка на случай, если запись еще не вытеснена, а токен уже истек
+        if (cached == null || cached.expiresAtMillis() <= System.currentTimeMillis()) {
+            return null;
+        }
+
+        return cached;
+    }
+
+    /**
+     * Запоминает проверенный токен.
+     *
+     * @param token JWT токен, прошедший проверку подписи и срока действия.
+     * @param userDetails пользователь из токена.
+     * @param tokenId jti токена.
+     * @param userId id пользователя из токена.
+     * @param tokenVersion версия токена из токена.
+     * @param expiration срок действия токена.
+     */
+    public void put(String token, UserDetails userDetails, String tokenId, long userId, int tokenVersion,
+                    Date expiration) {
+        if (expiration == null) {
+            return; //Токены без срока действия не кэшируем
+        }
+
+        cache.put(hash(token), new CachedAuthentication(userDetails, tokenId, userId, tokenVersion, expiration.getTime()));
+    }
+
+    //Удаляет из кэша один токен (при его отзыве)
+    public void invalidate(String token) {
+        cache.invalidate(hash(token));
+    }
+
+    //Удаляет из кэша все токены пользователя (вызывается при изменении данных пользователя)
+    public void invalidateUser(String username) {
+        cache.asMap().values().removeIf(cached -> cached.userDetails().getUsername().equals(username));
+    }
+
+    private long ttlNanos(CachedAuthentication value) {
+        long untilTokenExpiry = TimeUnit.MILLISECONDS.toNanos(value.expiresAtMillis() - System.currentTimeMillis());
+        return Math.max(0, Math.min(maxTtlNanos, untilTokenExpiry));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e); //SHA-256 обязан поддерживаться любой JVM
+        }
+    }
+}
@@ -1,29 +1,53 @@
 package ru.umagadzhi.blogplatform.jwt;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.List;
 
 @Component  // Аннотация Spring, обозначающая, что этот класс является Spring-компонентом и будет автоматически управляться контейнером Spring.
 public class JwtAuthenticationFilter extends OncePerRequestFilter { // Наследуемся от OncePerRequestFilter, чтобы фильтр выполнялся один раз за запрос.
 
     private final JwtUtil jwtUtil; // Утилита для работы с JWT (генерация и валидация токенов).
     private final UserDetailsService userDetailsService; // Сервис для загрузки информации о пользователе.
+    private final JwtAuthenticationCache authenticationCache; // Кэш уже проверенных токенов.
+    private final TokenVersionRegistry tokenVersionRegistry; // Текущие версии токенов (для отзыва).
+    private final TokenDenylist tokenDenylist; // Отдельно отозванные токены (выход из системы).
+    // Режим, в котором пользователь восстанавливается из claims токена без обращения к БД.
+    private final boolean statelessPrincipal;
+    private final Timer verifyTimer; // Время проверки подписи и разбора токена (без попаданий в кэш).
 
-    // Конструктор с внедрением зависимостей (JwtUtil и UserDetailsService).
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, @Qualifier("userService") UserDetailsService userDetailsService) {
+    // Конструктор с внедрением зависимостей.
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, @Qualifier("userService") UserDetailsService userDetailsService,
+                                   JwtAuthenticationCache authenticationCache, TokenVersionRegistry tokenVersionRegistry,
+                                   TokenDenylist tokenDenylist, MeterRegistry meterRegistry,
+                                   @Value("${jwt.stateless-principal:false}") boolean statelessPrincipal) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.authenticationCache = authenticationCache;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.tokenDenylist = tokenDenylist;
+        this.statelessPrincipal = statelessPrincipal;
+        this.verifyTimer = Timer.builder("jwt.verify")
+                .description("Проверка подписи и срока действия JWT")
+                .register(meterRegistry);
     }
 
     @Override
@@ -41,14 +65,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter { // Насл
 
         // Извлекаем сам JWT-токен, удаляя префикс "Bearer ".
         String token = authHeader.substring(7);
-        String username = jwtUtil.extractUsername(token); // Извлекаем имя пользователя из токена.
 
         // Проверяем, что пользователь ещё не аутентифицирован в SecurityContext.
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username); // Загружаем пользователя из базы.
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolveUser(token);
 
-            // Проверяем валидность токена.
-            if (jwtUtil.validateToken(token)) {
+            // Пользователь найден только для валидного токена.
+            if (userDetails != null) {
                 // Создаём объект аутентификации с пользователем и его ролями.
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
@@ -64,4 +87,55 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter { // Насл
         // Передаём запрос дальше по цепочке фильтров.
         filterChain.doFilter(request, response);
     }
+
+    // Возвращает пользователя для токена или null, если токен невалиден.
+    private UserDetails resolveUser(String token) {
+        // Токен уже проверялся недавно — берём пользователя из кэша без разбора подписи и запроса к БД.
+        // Отзыв проверяется и для закэшированных токенов: отзыв мог прийти с другого узла,
+        // поэтому проверяются и jti, и версия токенов пользователя.
+        JwtAuthenticationCache.CachedAuthentication cached = authenticationCache.get(token);
+        if (cached != null) {
+            if (tokenDenylist.isRevoked(cached.tokenId())
+                    || !tokenVersionRegistry.isCurrent(cached.userId(), cached.tokenVersion())) {
+                return null;
+            }
+            return cached.userDetails();
+        }
+
+        // Разбираем токен один раз: проверка подписи, срока действия и извлечение имени пользователя.
+        // Refresh-токены для доступа к API не принимаются.
+        Claims claims = verifyTimer.record(() -> jwtUtil.parseAccessClaims(token));
+        if (claims == null || claims.getSubject() == null || tokenDenylist.isRevoked(claims.getId())) {
+            return null;
+        }
+
+        // Токены пользователя были отозваны после выпуска этого токена.
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        Integer tokenVersion = claims.get(JwtUtil.TOKEN_VERSION_CLAIM, Integer.class);
+        if (userId == null || tokenVersion == null || !tokenVersionRegistry.isCurrent(userId, tokenVersion)) {
+            return null;
+        }
+
+        try {
+            UserDetails userDetails = statelessPrincipal
+                    ? principalFromClaims(claims) // Пользователь и роль берутся из подписанного токена.
+                    : userDetailsService.loadUserByUsername(claims.getSubject()); // Загружаем пользователя из базы.
+            if (userDetails != null) {
+                authenticationCache.put(token, userDetails, claims.getId(), userId, tokenVersion, claims.getExpiration());
+            }
+            return userDetails;
+        } catch (UsernameNotFoundException e) {
+            return null; // Пользователь из токена удалён.
+        }
+    }
+
+    // Строит пользователя только по проверенным claims токена, без обращения к UserRepository.
+    private UserDetails principalFromClaims(Claims claims) {
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+        if (role == null) {
+            return null;
+        }
+
+        return new User(claims.getSubject(), "", List.of(new SimpleGrantedAuthority(role)));
+    }
 }
@@ -0,0 +1,77 @@
+package ru.umagadzhi.blogplatform.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*Ключи подписи JWT.
+Ключи задаются в jwt.keys списком kid:секрет (секрет в base64, не короче 256 бит) через запятую,
+новые токены подписываются ключом jwt.active-kid, а для проверки ключ выбирается по заголовку kid токена.
+Ротация: добавить новый ключ, переключить active-kid, удалить старый ключ после истечения выпущенных им токенов.
+Все узлы с одинаковыми ключами принимают токены друг друга, и токены переживают перезапуск.*/
+@Slf4j
+@Component
+public class JwtKeyRing extends SigningKeyResolverAdapter {
+    //kid случайного ключа, который создается, если ключи не заданы
+    public static final String GENERATED_KID = "generated";
+
+    private final Map<String, SecretKey> keys = new LinkedHashMap<>();
+    private final String activeKid;
+
+    public JwtKeyRing(@Value("${jwt.keys:}") String keys, @Value("${jwt.active-kid:}") String activeKid) {
+        for (String entry : keys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Ключ JWT должен быть задан в виде kid:секрет");
+            }
+            this.keys.put(entry.substring(0, separator).trim(),
+                    Keys.hmacShaKeyFor(Decoders.BASE64.decode(entry.substring(separator + 1).trim())));
+        }
+
+        if (this.keys.isEmpty()) {
+            //Режим разработки: токены действуют только до перезапуска и только на этом узле
+            log.warn("Ключи JWT не заданы (jwt.keys), используется случайный ключ");
+            this.keys.put(GENERATED_KID, Keys.secretKeyFor(SignatureAlgorithm.HS256));
+        }
+
+        this.activeKid = activeKid.isBlank() ? this.keys.keySet().iterator().next() : activeKid;
+        if (!this.keys.containsKey(this.activeKid)) {
+            throw new IllegalArgumentException("Ключ JWT " + this.activeKid + " (jwt.active-kid) не найден в jwt.keys");
+        }
+    }
+
+    //kid ключа, которым подписываются новые токены
+    public String activeKid() {
+        return activeKid;
+    }
+
+    public SecretKey activeKey() {
+        return keys.get(activeKid);
+    }
+
+    //Выбор ключа для проверки подписи по заголовку kid
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        SecretKey key = header.getKeyId() == null ? null : keys.get(header.getKeyId());
+        if (key == null) {
+            throw new UnsupportedJwtException("Неизвестный ключ подписи: " + header.getKeyId());
+        }
+        return key;
+    }
+}
@@ -1,71 +1,113 @@
 package ru.umagadzhi.blogplatform.jwt;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import javax.crypto.SecretKey;
+import ru.umagadzhi.blogplatform.entities.User;
+
 import java.util.Date;
+import java.util.UUID;
 
 @Component  // Аннотация Spring, делает этот класс компонентом, который можно внедрять через @Autowired
 public class JwtUtil {
-    // Статический ключ для подписи JWT, сгенерированный через HMAC-SHA256.
-    // Этот ключ должен быть секретным и использоваться для подписания и проверки JWT.
-    private static final SecretKey SECRET = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    // Имена claims, по которым фильтр может восстановить пользователя без обращения к БД
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+    // Тип токена: access-токен передается с каждым запросом, refresh-токен — только для получения новой пары
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+
+    // Ключи подписи (для новых токенов — активный ключ, для проверки — по заголовку kid)
+    private final JwtKeyRing keyRing;
+    // Время жизни access- и refresh-токенов в миллисекундах
+    private final long accessTokenTtlMs;
+    private final long refreshTokenTtlMs;
+
+    // Парсер создается один раз: он потокобезопасен, а сборка через parserBuilder() на каждый запрос дорогая
+    private final JwtParser parser;
 
-    // Время жизни токена в миллисекундах (1 день)
-    private final long expirationMs = 86400000; // Время жизни токена: 1 день (в миллисекундах)
+    public JwtUtil(JwtKeyRing keyRing,
+                   @Value("${jwt.access-token.ttl-ms:900000}") long accessTokenTtlMs,
+                   @Value("${jwt.refresh-token.ttl-ms:1209600000}") long refreshTokenTtlMs) {
+        this.keyRing = keyRing;
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        this.refreshTokenTtlMs = refreshTokenTtlMs;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyRing) // Ключ для проверки подписи выбирается по kid из заголовка
+                .build();
+    }
 
     /**
-     * Генерация JWT токена на основе имени пользователя.
+     * Генерация access-токена для пользователя.
+     * Кроме имени пользователя в токен записываются его id, роль и версия токенов.
      *
-     * @param username имя пользователя, которое будет использовано в токене (subject).
+     * @param user пользователь, для которого выпускается токен.
      * @return сгенерированный JWT токен.
      */
-    public String generateToken(String username) {
-        // Создание JWT с использованием библиотеки JJWT
-        return Jwts.builder()
-                .setSubject(username)  // Устанавливаем имя пользователя как subject токена
-                .setIssuedAt(new Date())  // Устанавливаем текущее время как время создания токена
-                .setExpiration(new Date(System.currentTimeMillis() + expirationMs)) // Устанавливаем срок действия токена (1 день)
-                .signWith(SECRET, SignatureAlgorithm.HS256) // Подписываем токен с использованием HMAC-SHA256 и секретного ключа
-                .compact(); // Компонуем строку токена
+    public String generateToken(User user) {
+        return buildToken(user, ACCESS_TOKEN, accessTokenTtlMs);
     }
 
-    //
-
     /**
-     * Извлекает имя пользователя (subject) из переданного JWT токена.
+     * Генерация refresh-токена, по которому выдается новая пара токенов (POST /api/auth/refresh).
      *
-     * @param token JWT токен, из которого нужно извлечь имя пользователя.
-     * @return имя пользователя, которое было в токене.
+     * @param user пользователь, для которого выпускается токен.
+     * @return сгенерированный JWT токен.
      */
-    public String extractUsername(String token) {
-        // Разбираем токен и извлекаем subject (имя пользователя)
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET) // Устанавливаем ключ для проверки подписи
-                .build()
-                .parseClaimsJws(token) // Разбираем JWT токен и проверяем подпись
-                .getBody()
-                .getSubject(); // Извлекаем subject (имя пользователя)
+    public String generateRefreshToken(User user) {
+        return buildToken(user, REFRESH_TOKEN, refreshTokenTtlMs);
+    }
+
+    // Время жизни access-токена в секундах (для ответа клиенту)
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtlMs / 1000;
+    }
+
+    private String buildToken(User user, String type, long ttlMs) {
+        long now = System.currentTimeMillis();
+        // Создание JWT с использованием библиотеки JJWT
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.activeKid()) // Каким ключом подписан токен
+                .setId(UUID.randomUUID().toString()) // jti — по нему токен можно отозвать
+                .setSubject(user.getUsername())  // Устанавливаем имя пользователя как subject токена
+                .claim(USER_ID_CLAIM, user.getId()) // id пользователя
+                .claim(ROLE_CLAIM, user.getRole().name()) // Роль пользователя
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion()) // Версия токенов (для отзыва)
+                .claim(TOKEN_TYPE_CLAIM, type) // access или refresh
+                .setIssuedAt(new Date(now))  // Устанавливаем текущее время как время создания токена
+                .setExpiration(new Date(now + ttlMs)) // Устанавливаем срок действия токена
+                .signWith(keyRing.activeKey(), SignatureAlgorithm.HS256) // Подписываем токен активным ключом
+                .compact(); // Компонуем строку токена
     }
 
     /**
-     * Проверяет валидность JWT токена. Валидность включает проверку подписи
-     * и срока действия токена.
+     * Разбирает токен за один проход: проверяет подпись и срок действия и возвращает claims.
      *
-     * @param token JWT токен, который нужно проверить.
-     * @return true, если токен валиден; false, если токен невалиден (например, подпись некорректна или токен просрочен).
+     * @param token JWT токен.
+     * @return claims токена или null, если токен невалиден (подпись некорректна, токен просрочен или поврежден).
      */
-    public boolean validateToken(String token) {
+    public Claims parseClaims(String token) {
         try {
-            // Пытаемся разобрать токен и проверить его подпись
-            Jwts.parserBuilder()
-                    .setSigningKey(SECRET) // Устанавливаем ключ для проверки подписи
-                    .build()
-                    .parseClaimsJws(token); // Проверяем подпись и срок действия токена
-            return true; // Если исключений не было, значит токен валиден
-        } catch (JwtException e) { // Если токен недействителен (например, неверная подпись или токен просрочен)
-            return false; // Возвращаем false, если токен невалиден
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
         }
     }
+
+    // Claims access-токена или null, если токен невалиден или это refresh-токен
+    public Claims parseAccessClaims(String token) {
+        return parseClaims(token, ACCESS_TOKEN);
+    }
+
+    // Claims refresh-токена или null, если токен невалиден или это access-токен
+    public Claims parseRefreshClaims(String token) {
+        return parseClaims(token, REFRESH_TOKEN);
+    }
+
+    private Claims parseClaims(String token, String type) {
+        Claims claims = parseClaims(token);
+        return claims != null && type.equals(claims.get(TOKEN_TYPE_CLAIM, String.class)) ? claims : null;
+    }
 }
@@ -0,0 +1,114 @@
+package ru.umagadzhi.blogplatform.jwt;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.umagadzhi.blogplatform.repository.RevokedTokenRepository;
+import ru.umagadzhi.blogplatform.utils.BloomFilter;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*Список отозванных токенов (по jti), проверяется фильтром на каждый запрос.
+Перед картой стоит фильтр Блума: для неотозванного токена (почти всех запросов) ответ "нет" дается
+без обращения к карте. Отзывы сохраняются в таблицу revoked_tokens и периодически перечитываются,
+чтобы отзыв, сделанный на другом узле, тоже вступал в силу. Истекшие записи удаляются при перечитывании.
+Карта и фильтр всегда заменяются вместе, одним объектом State.*/
+@Component
+public class TokenDenylist {
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final RevokedTokenRepository repository;
+    private final int expectedSize;
+    private volatile State state;
+
+    public TokenDenylist(RevokedTokenRepository repository,
+                         @Value("${jwt.denylist.expected-size:100000}") int expectedSize) {
+        this.repository = repository;
+        this.expectedSize = expectedSize;
+        this.state = new State(new ConcurrentHashMap<>(), new BloomFilter(expectedSize, FALSE_POSITIVE_PROBABILITY));
+    }
+
+    public boolean isRevoked(String tokenId) {
+        State current = state;
+        if (tokenId == null || !current.filter().mightContain(tokenId)) {
+            return false;
+        }
+        return current.revoked().containsKey(tokenId);
+    }
+
+    /**
+     * Отзывает токен до истечения его срока действия.
+     *
+     * @param tokenId jti токена.
+     * @param expiration срок действия токена.
+     * @return false, если токен уже был отозван (на этом или на другом узле).
+     */
+    public boolean revoke(String tokenId, Date expiration) {
+        if (state.revoked().containsKey(tokenId)) {
+            return false;
+        }
+
+        //Единственный арбитр — уникальный ключ revoked_tokens: из одновременных отзывов успешен ровно один
+        boolean inserted = repository.insertIfAbsent(tokenId, expiration.toInstant()) > 0;
+        remember(tokenId, expiration.getTime());
+        return inserted;
+    }
+
+    //Добавляет отзыв в текущее состояние. Если refresh() успел заменить состояние, отзыв переносится и в новое
+    private void remember(String tokenId, long expiresAt) {
+        State current = state;
+        while (true) {
+            current.add(tokenId, expiresAt);
+            State latest = state;
+            if (latest == current) {
+                return;
+            }
+            current = latest;
+        }
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.denylist.refresh-interval-ms:30000}",
+            initialDelayString = "${jwt.denylist.refresh-interval-ms:30000}")
+    public void refresh() {
+        Instant now = Instant.now();
+        repository.deleteExpired(now);
+
+        Map<String, Long> loaded = new ConcurrentHashMap<>();
+        repository.findByExpiresAtAfter(now)
+                .forEach(token -> loaded.put(token.getId(), token.getExpiresAt().toEpochMilli()));
+        //Не теряем локальные отзывы, сделанные во время чтения
+        State previous = state;
+        previous.revoked().forEach((tokenId, expiresAt) -> {
+            if (expiresAt > now.toEpochMilli()) {
+                loaded.merge(tokenId, expiresAt, Math::max);
+            }
+        });
+
+        //Фильтр пересоздается: из него уходят истекшие токены, а размер растет вместе с числом отзывов
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedSize, loaded.size() * 2), FALSE_POSITIVE_PROBABILITY);
+        loaded.keySet().forEach(rebuilt::put);
+        State next = new State(loaded, rebuilt);
+        state = next;
+
+        //Отзывы, добавленные в старое состояние после копирования: remember() перенесет только те,
+        //что были сделаны после замены, поэтому остальные переносим сами
+        previous.revoked().forEach((tokenId, expiresAt) -> {
+            if (expiresAt > now.toEpochMilli()) {
+                next.add(tokenId, expiresAt);
+            }
+        });
+    }
+
+    //Отозванные токены (jti -> момент истечения токена, мс) и фильтр Блума по ним
+    private record State(Map<String, Long> revoked, BloomFilter filter) {
+        void add(String tokenId, long expiresAt) {
+            revoked.merge(tokenId, expiresAt, Math::max);
+            filter.put(tokenId);
+        }
+    }
+}
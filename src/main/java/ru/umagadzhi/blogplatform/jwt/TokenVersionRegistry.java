@@ -0,0 +1,45 @@
+package ru.umagadzhi.blogplatform.jwt;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.umagadzhi.blogplatform.repository.UserRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*Текущие версии токенов пользователей, держатся в памяти, чтобы проверка отзыва не обращалась к БД.
+В карте только пользователи, у которых токены отзывались (версия > 0), поэтому она маленькая.
+Карта периодически перечитывается из БД, чтобы отзыв, сделанный на другом узле, тоже вступал в силу.*/
+@Component
+public class TokenVersionRegistry {
+    private final UserRepository userRepository;
+    //id пользователя -> текущая версия его токенов
+    private volatile Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    //Токен принимается, если его версия не меньше текущей версии пользователя
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= versions.getOrDefault(userId, 0);
+    }
+
+    //Запоминаем новую версию после отзыва токенов
+    public void update(Long userId, int tokenVersion) {
+        versions.merge(userId, tokenVersion, Math::max);
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.token-version.refresh-interval-ms:30000}",
+            initialDelayString = "${jwt.token-version.refresh-interval-ms:30000}")
+    public void refresh() {
+        Map<Long, Integer> loaded = new ConcurrentHashMap<>();
+        userRepository.findRevokedTokenVersions()
+                .forEach(view -> loaded.put(view.getId(), view.getTokenVersion()));
+        //Не теряем локальные отзывы, сделанные во время чтения
+        versions.forEach((userId, version) -> loaded.merge(userId, version, Math::max));
+        versions = loaded;
+    }
+}
@@ -1,10 +1,23 @@
 package ru.umagadzhi.blogplatform.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.umagadzhi.blogplatform.entities.Category;
 
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByName(String name);
+
+    // Версия списка всех категорий для ETag: добавление увеличивает количество и максимальный id (id из последовательности),
+    // удаление уменьшает количество, изменение — сумму версий
+    @Query("select count(c) as categoryCount, coalesce(max(c.id), 0) as maxId, coalesce(sum(c.version), 0) as versionSum " +
+            "from Category c")
+    CategoriesVersionView findCategoriesVersion();
+
+    interface CategoriesVersionView {
+        long getCategoryCount();
+        long getMaxId();
+        long getVersionSum();
+    }
 }
@@ -1,11 +1,54 @@
 package ru.umagadzhi.blogplatform.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.umagadzhi.blogplatform.dto.CommentResponse;
 import ru.umagadzhi.blogplatform.entities.Comment;
 import ru.umagadzhi.blogplatform.entities.Post;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPost(Post post);
+
+    // Страница комментариев поста сразу в виде DTO (keyset-пагинация по id, без загрузки сущностей Comment/Post)
+    @Query("select new ru.umagadzhi.blogplatform.dto.CommentResponse(c.id, c.content, a.id, a.username, a.email) " +
+            "from Comment c join c.author a " +
+            "where c.post.id = :postId and c.id > :afterId order by c.id")
+    List<CommentResponse> findResponsesPageByPostId(@Param("postId") Long postId, @Param("afterId") Long afterId, Limit limit);
+
+    // Комментарии по id сразу в виде DTO (новые комментарии для live-обновлений)
+    @Query("select new ru.umagadzhi.blogplatform.dto.CommentResponse(c.id, c.content, a.id, a.username, a.email) " +
+            "from Comment c join c.author a where c.id in :ids order by c.id")
+    List<CommentResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Версия комментария для ETag и If-Match (по первичному ключу, без загрузки комментария и автора)
+    @Query("select c.version as version, c.updatedAt as updatedAt from Comment c where c.id = :id")
+    Optional<VersionView> findVersionById(@Param("id") Long id);
+
+    // Первые limit комментариев для каждого из постов одним запросом.
+    // LATERAL читает по индексу только нужные комментарии каждого поста, а не все комментарии.
+    // Псевдонимы в кавычках, чтобы PostgreSQL не приводил их к нижнему регистру
+    @Query(value = "select c.post_id as \"postId\", c.id as id, c.content as content, " +
+            "u.id as \"authorId\", u.username as \"authorUsername\", u.email as \"authorEmail\" " +
+            "from posts p " +
+            "cross join lateral (select cm.id, cm.post_id, cm.content, cm.author_id from comments cm " +
+            "where cm.post_id = p.id order by cm.id limit :limit) c " +
+            "join users u on u.id = c.author_id " +
+            "where p.id in (:postIds) " +
+            "order by c.post_id, c.id", nativeQuery = true)
+    List<CommentPreviewView> findFirstCommentsByPostIds(@Param("postIds") Collection<Long> postIds, @Param("limit") int limit);
+
+    interface CommentPreviewView {
+        Long getPostId();
+        Long getId();
+        String getContent();
+        Long getAuthorId();
+        String getAuthorUsername();
+        String getAuthorEmail();
+    }
 }
@@ -0,0 +1,90 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/*Подписки на авторов и категории (таблицы user_follows и category_follows).
+Подписка — пара id без собственных данных, поэтому работаем с таблицами через JdbcTemplate, без сущностей JPA.
+Подписка и отписка идемпотентны и выполняются одним запросом, как и лайки (LikeRepositoryImpl).*/
+@Repository
+public class FollowRepository {
+    static final String FOLLOW_AUTHOR_SQL = "insert into user_follows (follower_id, author_id) values (?, ?) on conflict do nothing";
+    static final String UNFOLLOW_AUTHOR_SQL = "delete from user_follows where follower_id = ? and author_id = ?";
+    static final String FOLLOW_CATEGORY_SQL = "insert into category_follows (follower_id, category_id) values (?, ?) on conflict do nothing";
+    static final String UNFOLLOW_CATEGORY_SQL = "delete from category_follows where follower_id = ? and category_id = ?";
+
+    static final String FOLLOWED_AUTHOR_IDS_SQL = "select author_id from user_follows where follower_id = ?";
+    static final String FOLLOWED_CATEGORY_IDS_SQL = "select category_id from category_follows where follower_id = ?";
+
+    //Подписчики нового поста: на его автора или на его категорию (каждый пользователь один раз)
+    static final String POST_FOLLOWER_IDS_SQL = "select follower_id from user_follows where author_id = ? "
+            + "union select follower_id from category_follows where category_id = ?";
+    static final String CATEGORY_FOLLOWER_IDS_SQL = "select follower_id from category_follows where category_id = ?";
+
+    //Авторы, у которых не меньше заданного числа подписчиков (обходит только индекс idx_user_follows_author_id)
+    static final String POPULAR_AUTHOR_IDS_SQL = "select author_id from user_follows group by author_id having count(*) >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FollowRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    //Подписка на автора. Возвращает false, если подписка уже была
+    public boolean followAuthor(Long followerId, Long authorId) {
+        return insert(FOLLOW_AUTHOR_SQL, followerId, authorId, "Пользователь с id = " + followerId + " или автор с id = " + authorId + " не найден.");
+    }
+
+    //Отписка от автора. Возвращает false, если подписки не было
+    public boolean unfollowAuthor(Long followerId, Long authorId) {
+        return jdbcTemplate.update(UNFOLLOW_AUTHOR_SQL, followerId, authorId) > 0;
+    }
+
+    //Подписка на категорию. Возвращает false, если подписка уже была
+    public boolean followCategory(Long followerId, Long categoryId) {
+        return insert(FOLLOW_CATEGORY_SQL, followerId, categoryId, "Пользователь с id = " + followerId + " или категория с id = " + categoryId + " не найдена.");
+    }
+
+    //Отписка от категории. Возвращает false, если подписки не было
+    public boolean unfollowCategory(Long followerId, Long categoryId) {
+        return jdbcTemplate.update(UNFOLLOW_CATEGORY_SQL, followerId, categoryId) > 0;
+    }
+
+    //Авторы, на которых подписан пользователь
+    public List<Long> findFollowedAuthorIds(Long followerId) {
+        return jdbcTemplate.queryForList(FOLLOWED_AUTHOR_IDS_SQL, Long.class, followerId);
+    }
+
+    //Категории, на которые подписан пользователь
+    public List<Long> findFollowedCategoryIds(Long followerId) {
+        return jdbcTemplate.queryForList(FOLLOWED_CATEGORY_IDS_SQL, Long.class, followerId);
+    }
+
+    //Пользователи, подписанные на автора или на категорию поста
+    public List<Long> findPostFollowerIds(Long authorId, Long categoryId) {
+        return jdbcTemplate.queryForList(POST_FOLLOWER_IDS_SQL, Long.class, authorId, categoryId);
+    }
+
+    //Пользователи, подписанные на категорию
+    public List<Long> findCategoryFollowerIds(Long categoryId) {
+        return jdbcTemplate.queryForList(CATEGORY_FOLLOWER_IDS_SQL, Long.class, categoryId);
+    }
+
+    //Авторы, у которых не меньше minFollowers подписчиков
+    public List<Long> findPopularAuthorIds(long minFollowers) {
+        return jdbcTemplate.queryForList(POPULAR_AUTHOR_IDS_SQL, Long.class, minFollowers);
+    }
+
+    private boolean insert(String sql, Long followerId, Long targetId, String notFoundMessage) {
+        try {
+            return jdbcTemplate.update(sql, followerId, targetId) > 0;
+        } catch (DataIntegrityViolationException e) {
+            //Повтор поглощает ON CONFLICT, значит это внешний ключ: пользователя или источника подписки нет
+            throw new EntityNotFoundException(notFoundMessage);
+        }
+    }
+}
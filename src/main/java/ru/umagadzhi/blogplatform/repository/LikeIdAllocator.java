@@ -0,0 +1,53 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/*Выдает id для лайков, которые вставляются через JDBC мимо Hibernate.
+Последовательность likes_seq растет на 50 (allocationSize у Like), и Hibernate (оптимизатор pooled) считает
+ее значение v блоком id [v - 49, v]. Здесь та же схема: одно обращение к последовательности на 50 лайков,
+а выданные id не пересекаются с id, которые Hibernate выдает сущностям Like.*/
+@Component
+public class LikeIdAllocator {
+    //Совпадает с allocationSize последовательности likes_seq в Like
+    static final int ALLOCATION_SIZE = 50;
+    private static final String NEXT_VALUE_SQL = "select nextval('likes_seq')";
+
+    private final JdbcTemplate jdbcTemplate;
+    //ReentrantLock, а не synchronized: за новым блоком идем в БД под блокировкой,
+    //и виртуальный поток, ожидающий ее, не должен блокировать поток-носитель
+    private final ReentrantLock lock = new ReentrantLock();
+    //Следующий свободный id и последний id текущего блока (под lock)
+    private long next;
+    private long hi = -1;
+
+    public LikeIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next > hi) {
+                long value = nextValue();
+                if (value == 1) {
+                    //Начальное значение последовательности: как и Hibernate, выдаем id с 1 до следующего значения
+                    next = 1;
+                    hi = nextValue();
+                } else {
+                    next = value - ALLOCATION_SIZE + 1;
+                    hi = value;
+                }
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long nextValue() {
+        return jdbcTemplate.queryForObject(NEXT_VALUE_SQL, Long.class);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.umagadzhi.blogplatform.repository;
+
+//Постановка и снятие лайка одним SQL-запросом, без предварительной загрузки поста и пользователя
+public interface LikeRepositoryCustom {
+
+    //Вставка лайка, общая для всех путей записи. Id выдает LikeIdAllocator, повтор отсекает уникальный индекс (post_id, user_id)
+    String INSERT_LIKE_SQL = "insert into likes (id, post_id, user_id) values (?, ?, ?) on conflict (post_id, user_id) do nothing";
+
+    //Лайк и пользователь, который его поставил. created = false, если лайк уже был
+    record LikeRow(Long id, boolean created, Long userId, String username, String email) {}
+
+    /**
+     * Идемпотентно ставит лайк (INSERT ... ON CONFLICT DO NOTHING).
+     * Повторный или одновременный клик того же пользователя не создает второй лайк, а возвращает существующий.
+     *
+     * @param postId id поста.
+     * @param userId id пользователя.
+     * @return новый (created = true) или уже существовавший лайк.
+     * @throws jakarta.persistence.EntityNotFoundException если пост или пользователь не существует (нарушение внешнего ключа).
+     * @throws org.springframework.dao.ConcurrencyFailureException если лайк одновременно ставят и снимают и результат не удалось получить.
+     */
+    LikeRow insertLike(Long postId, Long userId);
+
+    /**
+     * Идемпотентно снимает лайк (DELETE ... RETURNING).
+     *
+     * @param postId id поста.
+     * @param userId id пользователя.
+     * @return true, если лайк был и удален этим вызовом.
+     */
+    boolean deleteLike(Long postId, Long userId);
+}
@@ -0,0 +1,76 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+
+/*Реализация LikeRepositoryCustom на JdbcTemplate (Spring Data подключает ее к LikeRepository по суффиксу Impl).
+Внутри транзакции JPA JdbcTemplate работает на том же соединении.*/
+class LikeRepositoryImpl implements LikeRepositoryCustom {
+
+    /*Вставка и чтение результата одним запросом: если лайк вставлен — возвращаем его из inserted,
+    если сработал ON CONFLICT — существующий лайк из таблицы. Все части запроса видят один снимок данных,
+    поэтому существующий лайк читается второй веткой UNION, а не повторным запросом.*/
+    static final String UPSERT_LIKE_SQL = "with inserted as (" + INSERT_LIKE_SQL + " returning id, user_id) " + """
+            select i.id, true as created, u.id as user_id, u.username, u.email
+            from inserted i join users u on u.id = i.user_id
+            union all
+            select l.id, false, u.id, u.username, u.email
+            from likes l join users u on u.id = l.user_id
+            where l.post_id = ? and l.user_id = ? and not exists (select 1 from inserted)
+            """;
+
+    static final String SELECT_LIKE_SQL = """
+            select l.id, false as created, u.id as user_id, u.username, u.email
+            from likes l join users u on u.id = l.user_id
+            where l.post_id = ? and l.user_id = ?
+            """;
+
+    static final String DELETE_LIKE_SQL = "delete from likes where post_id = ? and user_id = ? returning id";
+
+    private static final RowMapper<LikeRow> LIKE_ROW_MAPPER = (rs, rowNum) -> new LikeRow(
+            rs.getLong("id"), rs.getBoolean("created"), rs.getLong("user_id"), rs.getString("username"), rs.getString("email"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LikeIdAllocator likeIdAllocator;
+
+    LikeRepositoryImpl(JdbcTemplate jdbcTemplate, LikeIdAllocator likeIdAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.likeIdAllocator = likeIdAllocator;
+    }
+
+    @Override
+    public LikeRow insertLike(Long postId, Long userId) {
+        //Вторая попытка нужна только если лайк одновременно ставят и снимают параллельные запросы
+        for (int attempt = 0; attempt < 2; attempt++) {
+            List<LikeRow> rows;
+            try {
+                rows = jdbcTemplate.query(UPSERT_LIKE_SQL, LIKE_ROW_MAPPER,
+                        likeIdAllocator.nextId(), postId, userId, postId, userId);
+            } catch (DataIntegrityViolationException e) {
+                //Уникальный конфликт поглощает ON CONFLICT, значит это внешний ключ: поста или пользователя нет
+                throw new EntityNotFoundException("Пост с id = " + postId + " или пользователь с id = " + userId + " не найден.");
+            }
+
+            if (rows.isEmpty()) {
+                //Конфликт с лайком, который параллельная транзакция зафиксировала уже после снимка нашего запроса.
+                //Новый запрос (READ COMMITTED) его увидит
+                rows = jdbcTemplate.query(SELECT_LIKE_SQL, LIKE_ROW_MAPPER, postId, userId);
+            }
+            if (!rows.isEmpty()) {
+                return rows.get(0);
+            }
+        }
+        //Временный конфликт, а не ошибка клиента: повторный запрос пройдет (ответ 409 с Retry-After)
+        throw new ConcurrencyFailureException("Не удалось поставить лайк, повторите запрос");
+    }
+
+    @Override
+    public boolean deleteLike(Long postId, Long userId) {
+        return !jdbcTemplate.queryForList(DELETE_LIKE_SQL, Long.class, postId, userId).isEmpty();
+    }
+}
@@ -1,13 +1,141 @@
 package ru.umagadzhi.blogplatform.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.dto.PostSummaryResponse;
 import ru.umagadzhi.blogplatform.entities.Post;
-import ru.umagadzhi.blogplatform.entities.User;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
-    List<Post> findByAuthor_Username(String author);
-    List<Post> findByCategory_Name(String categoryName);
-    List<Post> findByCategory_NameAndAuthor_Username(String categoryName, String author);
+    // Проекция сразу в PostResponse: пост, автор и категория читаются одним SELECT с join,
+    // без загрузки сущностей и без дополнительных запросов на каждую строку (N+1)
+    String SELECT_POST_RESPONSE = "select new ru.umagadzhi.blogplatform.dto.PostResponse(" +
+            "p.id, p.title, p.content, a.id, a.username, a.email, c.id, c.name) " +
+            "from Post p join p.author a join p.category c ";
+
+    @Query(SELECT_POST_RESPONSE + "where p.id = :id")
+    Optional<PostResponse> findResponseById(@Param("id") Long id);
+
+    @Query(SELECT_POST_RESPONSE + "where p.id in :ids")
+    List<PostResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_POST_RESPONSE + "where a.username = :author order by p.id")
+    List<PostResponse> findResponsesByAuthorUsername(@Param("author") String author);
+
+    @Query(SELECT_POST_RESPONSE + "where c.name = :categoryName order by p.id")
+    List<PostResponse> findResponsesByCategoryName(@Param("categoryName") String categoryName);
+
+    @Query(SELECT_POST_RESPONSE + "where c.name = :categoryName and a.username = :author order by p.id")
+    List<PostResponse> findResponsesByCategoryNameAndAuthorUsername(@Param("categoryName") String categoryName,
+                                                                    @Param("author") String author);
+
+    // Keyset-пагинация: выбираем следующие limit постов после id (seek по первичному ключу вместо OFFSET)
+    @Query(SELECT_POST_RESPONSE + "where p.id > :afterId order by p.id")
+    List<PostResponse> findResponsesPage(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(SELECT_POST_RESPONSE + "where c.name = :categoryName and p.id > :afterId order by p.id")
+    List<PostResponse> findResponsesPageByCategoryName(@Param("categoryName") String categoryName,
+                                                       @Param("afterId") Long afterId, Limit limit);
+
+    @Query(SELECT_POST_RESPONSE + "where a.username = :author and p.id > :afterId order by p.id")
+    List<PostResponse> findResponsesPageByAuthorUsername(@Param("author") String author,
+                                                         @Param("afterId") Long afterId, Limit limit);
+
+    @Query(SELECT_POST_RESPONSE + "where c.name = :categoryName and a.username = :author and p.id > :afterId order by p.id")
+    List<PostResponse> findResponsesPageByCategoryNameAndAuthorUsername(@Param("categoryName") String categoryName,
+                                                                        @Param("author") String author,
+                                                                        @Param("afterId") Long afterId, Limit limit);
+
+    // Краткие посты для списков (view=summary): вместо content читается короткий excerpt
+    String SELECT_POST_SUMMARY = "select new ru.umagadzhi.blogplatform.dto.PostSummaryResponse(" +
+            "p.id, p.title, p.excerpt, a.id, a.username, a.email, c.id, c.name) " +
+            "from Post p join p.author a join p.category c ";
+
+    @Query(SELECT_POST_SUMMARY + "where p.id in :ids")
+    List<PostSummaryResponse> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_POST_SUMMARY + "where p.id > :afterId order by p.id")
+    List<PostSummaryResponse> findSummariesPage(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(SELECT_POST_SUMMARY + "where c.name = :categoryName and p.id > :afterId order by p.id")
+    List<PostSummaryResponse> findSummariesPageByCategoryName(@Param("categoryName") String categoryName,
+                                                              @Param("afterId") Long afterId, Limit limit);
+
+    @Query(SELECT_POST_SUMMARY + "where a.username = :author and p.id > :afterId order by p.id")
+    List<PostSummaryResponse> findSummariesPageByAuthorUsername(@Param("author") String author,
+                                                                @Param("afterId") Long afterId, Limit limit);
+
+    @Query(SELECT_POST_SUMMARY + "where c.name = :categoryName and a.username = :author and p.id > :afterId order by p.id")
+    List<PostSummaryResponse> findSummariesPageByCategoryNameAndAuthorUsername(@Param("categoryName") String categoryName,
+                                                                               @Param("author") String author,
+                                                                               @Param("afterId") Long afterId, Limit limit);
+
+    // Полнотекстовый поиск по заголовку и тексту (GIN-индекс по posts.search_vector), результаты по релевантности
+    @Query(value = "select p.id from posts p, websearch_to_tsquery('russian', :query) q " +
+            "where p.search_vector @@ q " +
+            "order by ts_rank(p.search_vector, q) desc, p.id desc " +
+            "limit :limit offset :offset", nativeQuery = true)
+    List<Long> searchIds(@Param("query") String query, @Param("limit") int limit, @Param("offset") int offset);
+
+    // Какие из переданных id постов существуют (для пакетных операций, без загрузки самих постов)
+    @Query("select p.id from Post p where p.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // id последних постов авторов (восстановление ленты подписчика и лента популярного автора)
+    @Query("select p.id from Post p where p.author.id in :authorIds order by p.id desc")
+    List<Long> findRecentIdsByAuthorIdIn(@Param("authorIds") Collection<Long> authorIds, Limit limit);
+
+    // id последних постов категорий (восстановление ленты подписчика)
+    @Query("select p.id from Post p where p.category.id in :categoryIds order by p.id desc")
+    List<Long> findRecentIdsByCategoryIdIn(@Param("categoryIds") Collection<Long> categoryIds, Limit limit);
+
+    // Категория поста (рейтинг популярных постов по категориям)
+    @Query("select p.category.id from Post p where p.id = :id")
+    Optional<Long> findCategoryIdById(@Param("id") Long id);
+
+    // Читает денормализованный счетчик лайков поста (поиск по первичному ключу вместо COUNT(*) по likes)
+    @Query("select p.likeCount from Post p where p.id = :id")
+    Optional<Long> findLikeCountById(@Param("id") Long id);
+
+    // Денормализованные счетчики лайков нескольких постов одним запросом (live-обновления)
+    @Query("select p.id as id, p.likeCount as likeCount from Post p where p.id in :ids")
+    List<LikeCountView> findLikeCountsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Версии поста и его категории (название категории входит в PostResponse) для ETag и If-Match:
+    // два чтения по первичным ключам, сам пост не загружается
+    @Query("select p.version as version, p.updatedAt as updatedAt, " +
+            "c.version as categoryVersion, c.updatedAt as categoryUpdatedAt " +
+            "from Post p join p.category c where p.id = :id")
+    Optional<PostVersionView> findVersionById(@Param("id") Long id);
+
+    // Атомарно прибавляет накопленную дельту к счетчику лайков
+    @Modifying
+    @Query("update Post p set p.likeCount = p.likeCount + :delta where p.id = :id")
+    int addToLikeCount(@Param("id") Long id, @Param("delta") long delta);
+
+    // Сверяет счетчики с фактическим количеством лайков и исправляет расхождения. Возвращает число исправленных постов
+    @Modifying
+    @Query(value = "update posts p set like_count = coalesce(l.cnt, 0) " +
+            "from posts p2 left join (select post_id, count(*) as cnt from likes group by post_id) l on l.post_id = p2.id " +
+            "where p.id = p2.id and p.like_count <> coalesce(l.cnt, 0)", nativeQuery = true)
+    int reconcileLikeCounts();
+
+    interface LikeCountView {
+        Long getId();
+        long getLikeCount();
+    }
+
+    interface PostVersionView extends VersionView {
+        long getCategoryVersion();
+        Instant getCategoryUpdatedAt();
+    }
 }
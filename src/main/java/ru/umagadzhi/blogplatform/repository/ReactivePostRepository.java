@@ -0,0 +1,119 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.umagadzhi.blogplatform.dto.CommentResponse;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/*Неблокирующее чтение постов и комментариев через R2DBC (DatabaseClient).
+Потоковые методы читают таблицу keyset-страницами: каждая страница — отдельный короткий запрос,
+соединение возвращается в пул сразу после него. Следующая страница запрашивается, только когда клиент
+забрал предыдущую, поэтому медленный клиент не держит ни соединение, ни поток.
+SQL переносимый (без особенностей PostgreSQL), чтобы его можно было проверить на встроенной H2.*/
+@Repository
+public class ReactivePostRepository {
+    static final String SELECT_POST_RESPONSE = "select p.id, p.title, p.content, "
+            + "a.id as author_id, a.username as author_username, a.email as author_email, "
+            + "c.id as category_id, c.name as category_name "
+            + "from posts p join users a on a.id = p.author_id join categories c on c.id = p.category_id "
+            + "where p.id > :afterId ";
+
+    static final String SELECT_COMMENT_RESPONSE = "select c.id, c.content, "
+            + "a.id as author_id, a.username as author_username, a.email as author_email "
+            + "from comments c join users a on a.id = c.author_id "
+            + "where c.post_id = :postId and c.id > :afterId order by c.id limit :limit";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactivePostRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Страница постов с необязательными фильтрами по категории и автору (keyset-пагинация по id).
+     *
+     * @param categoryName название категории или null.
+     * @param author имя автора или null.
+     * @param afterId id последнего поста предыдущей страницы (0 для первой страницы).
+     * @param limit размер страницы.
+     */
+    public Flux<PostResponse> findPostsPage(String categoryName, String author, long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_POST_RESPONSE);
+        if (categoryName != null) {
+            sql.append("and c.name = :categoryName ");
+        }
+        if (author != null) {
+            sql.append("and a.username = :author ");
+        }
+        sql.append("order by p.id limit :limit");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("afterId", afterId)
+                .bind("limit", limit);
+        if (categoryName != null) {
+            spec = spec.bind("categoryName", categoryName);
+        }
+        if (author != null) {
+            spec = spec.bind("author", author);
+        }
+
+        return spec.map(ReactivePostRepository::toPostResponse).all();
+    }
+
+    //Все посты с фильтрами, по возрастанию id, страницами по pageSize
+    public Flux<PostResponse> streamPosts(String categoryName, String author, int pageSize) {
+        return streamPages(afterId -> findPostsPage(categoryName, author, afterId, pageSize), PostResponse::getId, pageSize);
+    }
+
+    //Страница комментариев поста (keyset-пагинация по id)
+    public Flux<CommentResponse> findCommentsPage(Long postId, long afterId, int limit) {
+        return databaseClient.sql(SELECT_COMMENT_RESPONSE)
+                .bind("postId", postId)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactivePostRepository::toCommentResponse)
+                .all();
+    }
+
+    //Все комментарии поста по возрастанию id, страницами по pageSize
+    public Flux<CommentResponse> streamComments(Long postId, int pageSize) {
+        return streamPages(afterId -> findCommentsPage(postId, afterId, pageSize), CommentResponse::getId, pageSize);
+    }
+
+    //Страницы запрашиваются по одной: следующая — после id последней записи предыдущей, пока страница полная
+    private static <T> Flux<T> streamPages(LongFunction<Flux<T>> page,
+                                           Function<T, Long> id, int pageSize) {
+        return page.apply(0L).collectList()
+                .expand(previous -> previous.size() < pageSize
+                        ? Mono.empty()
+                        : page.apply(id.apply(previous.get(previous.size() - 1))).collectList())
+                .concatMapIterable(Function.identity());
+    }
+
+    private static PostResponse toPostResponse(Readable row) {
+        return new PostResponse(
+                row.get("id", Long.class),
+                row.get("title", String.class),
+                row.get("content", String.class),
+                row.get("author_id", Long.class),
+                row.get("author_username", String.class),
+                row.get("author_email", String.class),
+                row.get("category_id", Long.class),
+                row.get("category_name", String.class));
+    }
+
+    private static CommentResponse toCommentResponse(Readable row) {
+        return new CommentResponse(
+                row.get("id", Long.class),
+                row.get("content", String.class),
+                row.get("author_id", Long.class),
+                row.get("author_username", String.class),
+                row.get("author_email", String.class));
+    }
+}
@@ -0,0 +1,28 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.umagadzhi.blogplatform.entities.RevokedToken;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    // Еще не истекшие отозванные токены
+    List<RevokedToken> findByExpiresAtAfter(Instant now);
+
+    // Сохраняет отзыв токена. БД решает, кто отозвал токен первым: 0 — токен уже отозван, в том числе на другом узле
+    @Transactional
+    @Modifying
+    @Query(value = "insert into revoked_tokens (id, expires_at) values (:id, :expiresAt) on conflict (id) do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(String id, Instant expiresAt);
+
+    // Удаляет записи об уже истекших токенах
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken t where t.expiresAt <= :now")
+    int deleteExpired(Instant now);
+}
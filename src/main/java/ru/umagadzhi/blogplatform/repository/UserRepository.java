@@ -1,11 +1,25 @@
 package ru.umagadzhi.blogplatform.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.umagadzhi.blogplatform.entities.User;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Пользователь не кэшируется: в сущности хеш пароля и версия токенов, а локальный кэш не узнает
+    // об их изменении на другом узле (вход, отзыв токенов и смена пароля должны видеть данные из БД).
+    // Запросы с токеном в БД не ходят благодаря JwtAuthenticationCache
     Optional<User> findByUsername(String text);
     Optional<User> findByEmail(String text);
+
+    // Версии токенов пользователей, у которых токены хотя бы раз отзывались
+    @Query("select u.id as id, u.tokenVersion as tokenVersion from User u where u.tokenVersion > 0")
+    List<TokenVersionView> findRevokedTokenVersions();
+
+    interface TokenVersionView {
+        Long getId();
+        int getTokenVersion();
+    }
 }
@@ -0,0 +1,9 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import java.time.Instant;
+
+//Версия и время последнего изменения сущности без загрузки самой сущности (ETag и Last-Modified)
+public interface VersionView {
+    long getVersion();
+    Instant getUpdatedAt();
+}
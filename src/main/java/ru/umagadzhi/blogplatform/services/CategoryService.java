@@ -1,17 +1,24 @@
 package ru.umagadzhi.blogplatform.services;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import ru.umagadzhi.blogplatform.config.CacheConfig;
 import ru.umagadzhi.blogplatform.dto.CategoryRequest;
 import ru.umagadzhi.blogplatform.dto.CategoryResponse;
+import ru.umagadzhi.blogplatform.dto.ResourceVersion;
 import ru.umagadzhi.blogplatform.entities.Category;
 import ru.umagadzhi.blogplatform.repository.CategoryRepository;
 
 import java.util.List;
 
 @Service // Обозначаем класс как сервисный компонент для Spring
+@Timed("blog.service") //Время выполнения каждого метода сервиса
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
@@ -51,6 +58,7 @@ public class CategoryService {
      * @param request данные для обновления категории.
      * @return обновленная категория в виде CategoryResponse или null, если категория с таким id не найдена.
      */
+    @CachePut(cacheNames = CacheConfig.CATEGORIES, key = "#request.id", unless = "#result == null")
     public CategoryResponse updateCategory(CategoryRequest request) {
 
         // Проверяем, передан ли ID
@@ -78,12 +86,27 @@ public class CategoryService {
                 .orElse(null); // Если категория с таким id не найдена, возвращаем null
     }
 
+    /**
+     * Версия списка всех категорий для ETag (один агрегирующий запрос по небольшой таблице категорий).
+     * Last-Modified не отдается: удаление категории не оставляет времени изменения.
+     *
+     * @return версия списка категорий.
+     */
+    public ResourceVersion getCategoriesVersion() {
+        CategoryRepository.CategoriesVersionView view = categoryRepository.findCategoriesVersion();
+        return new ResourceVersion(view.getVersionSum(),
+                ResourceVersion.eTag(view.getCategoryCount(), view.getMaxId(), view.getVersionSum()), null);
+    }
+
     /**
      * Получает список всех категорий.
+     * Версия списка входит в ключ кэша, поэтому после любых изменений категорий кэш не нужно сбрасывать.
      *
+     * @param version текущая версия списка (см. getCategoriesVersion).
      * @return список всех категорий в виде объектов CategoryResponse.
      */
-    public List<CategoryResponse> getAllCategories() {
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = CacheConfig.ALL_CATEGORIES_KEY)
+    public List<CategoryResponse> getAllCategories(ResourceVersion version) {
         // Находим все категории в базе и преобразуем в CategoryResponse
         return categoryRepository.findAll().stream()
                 .map(category -> new CategoryResponse(category.getId(), category.getName()))
@@ -96,6 +119,7 @@ public class CategoryService {
      * @param id идентификатор категории.
      * @return объект CategoryResponse или null, если категория с таким id не найдена.
      */
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id", unless = "#result == null")
     public CategoryResponse getCategoryById(Long id) {
         // Находим категорию по id, если она существует, преобразуем в CategoryResponse
         return categoryRepository.findById(id)
@@ -108,6 +132,7 @@ public class CategoryService {
      *
      * @param id идентификатор категории.
      */
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id")
     public void deleteCategoryById(Long id) {
         // Удаляем категорию по id
         categoryRepository.deleteById(id);
@@ -1,27 +1,59 @@
 package ru.umagadzhi.blogplatform.services;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import ru.umagadzhi.blogplatform.dto.BulkItemResult;
+import ru.umagadzhi.blogplatform.dto.CommentPage;
 import ru.umagadzhi.blogplatform.dto.CommentRequest;
 import ru.umagadzhi.blogplatform.dto.CommentResponse;
 import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.dto.ResourceVersion;
 import ru.umagadzhi.blogplatform.dto.UserResponse;
 import ru.umagadzhi.blogplatform.entities.Comment;
 import ru.umagadzhi.blogplatform.entities.Post;
 import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.events.CommentCreatedEvent;
 import ru.umagadzhi.blogplatform.repository.CommentRepository;
 import ru.umagadzhi.blogplatform.repository.PostRepository;
 import ru.umagadzhi.blogplatform.repository.UserRepository;
+import ru.umagadzhi.blogplatform.utils.BulkRequests;
+import ru.umagadzhi.blogplatform.utils.CursorCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed("blog.service") //Время выполнения каждого метода сервиса
 public class CommentService {
+    //Ограничения размеров выборок комментариев
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_PREVIEW_POSTS = 100;
+    public static final int MAX_PREVIEW_COMMENTS = 20;
+
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
     private final PostRepository postRepository;
+    //Новые комментарии учитываются в рейтинге популярных постов (TrendingService)
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CommentService(CommentRepository commentRepository, UserRepository userRepository, PostRepository postRepository) {
+    public CommentService(CommentRepository commentRepository, UserRepository userRepository, PostRepository postRepository,
+                          ApplicationEventPublisher eventPublisher) {
         this.commentRepository = commentRepository;
         this.userRepository = userRepository;
         this.postRepository = postRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     //Добавление комментария к посту
@@ -52,6 +84,7 @@ public class CommentService {
 
         //Сохраняем комментарий
         Comment savedComment = commentRepository.save(comment);
+        eventPublisher.publishEvent(new CommentCreatedEvent(post.getId(), savedComment.getId()));
 
         //Возвращаем DTO комментария
         return new CommentResponse(
@@ -61,8 +94,77 @@ public class CommentService {
         );
     }
 
-    //Обновление комментария
-    public CommentResponse updateComment(CommentRequest commentRequest) {
+    /**
+     * Пакетное добавление комментариев. Авторы и посты проверяются одним запросом на тип,
+     * комментарии вставляются в одной транзакции пакетами JDBC.
+     *
+     * @param commentRequests комментарии для добавления.
+     * @return результат по каждому элементу запроса: id созданного комментария или причина отказа.
+     */
+    @Transactional
+    public List<BulkItemResult> createComments(List<CommentRequest> commentRequests) {
+        BulkRequests.checkSize(commentRequests);
+
+        Map<Long, User> authors = userRepository.findAllById(BulkRequests.referencedIds(commentRequests, CommentRequest::getAuthorId)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        //Посты нужны только как внешний ключ: проверяем существование, не загружая сами посты
+        Set<Long> postIds = postRepository.findExistingIds(BulkRequests.referencedIds(commentRequests, CommentRequest::getPostId));
+
+        BulkItemResult[] results = new BulkItemResult[commentRequests.size()];
+        List<Comment> comments = new ArrayList<>();
+        List<Integer> commentIndexes = new ArrayList<>();
+
+        for (int i = 0; i < commentRequests.size(); i++) {
+            CommentRequest commentRequest = commentRequests.get(i);
+            String error = validateNewComment(commentRequest, authors, postIds);
+            if (error != null) {
+                results[i] = BulkItemResult.failed(i, error);
+                continue;
+            }
+
+            Comment comment = new Comment();
+            comment.setContent(commentRequest.getContent());
+            comment.setPost(postRepository.getReferenceById(commentRequest.getPostId()));
+            comment.setAuthor(authors.get(commentRequest.getAuthorId()));
+            comments.add(comment);
+            commentIndexes.add(i);
+        }
+
+        //id присваиваются сразу (из последовательности), сами вставки уходят пакетами при коммите
+        commentRepository.saveAll(comments);
+        for (int i = 0; i < comments.size(); i++) {
+            int index = commentIndexes.get(i);
+            results[index] = BulkItemResult.created(index, comments.get(i).getId());
+            //Слушатели получат событие только после коммита транзакции
+            eventPublisher.publishEvent(new CommentCreatedEvent(commentRequests.get(index).getPostId(), comments.get(i).getId()));
+        }
+
+        return Arrays.asList(results);
+    }
+
+    //Причина, по которой комментарий нельзя добавить, или null, если данные корректны
+    private static String validateNewComment(CommentRequest commentRequest, Map<Long, User> authors, Set<Long> postIds) {
+        if (commentRequest == null) {
+            return "Комментарий не передан";
+        }
+        if (commentRequest.getId() != null) {
+            return "Нельзя передавать id при создании комментария.";
+        }
+        if (commentRequest.getContent() == null || commentRequest.getContent().trim().isEmpty()) {
+            return "Комментарий не может быть пустым.";
+        }
+        if (commentRequest.getAuthorId() == null || !authors.containsKey(commentRequest.getAuthorId())) {
+            return "Пользователь с id = " + commentRequest.getAuthorId() + " не найден.";
+        }
+        if (commentRequest.getPostId() == null || !postIds.contains(commentRequest.getPostId())) {
+            return "Пост с id = " + commentRequest.getPostId() + " не найден.";
+        }
+        return null;
+    }
+
+    //Обновление комментария. expectedVersion — версия, которую видел клиент (If-Match), или null без проверки.
+    //Если комментарий изменился после чтения клиентом, выбрасывается ObjectOptimisticLockingFailureException
+    public CommentResponse updateComment(CommentRequest commentRequest, Long expectedVersion) {
         if (commentRequest.getId() == null) {
             throw new IllegalArgumentException("ID комментария обязателен");
         }
@@ -91,7 +193,11 @@ public class CommentService {
         //Ищем комментарий по его ID
         return commentRepository.findById(commentRequest.getId())
                 .map(comment -> {
-                    //Обновляем комментарий
+                    if (expectedVersion != null && comment.getVersion() != expectedVersion) {
+                        throw new ObjectOptimisticLockingFailureException(Comment.class, comment.getId());
+                    }
+
+                    //Обновляем комментарий (изменение между чтением и сохранением Hibernate обнаружит по версии)
                     comment.setContent(commentRequest.getContent());
                     comment.setPost(post);
                     comment.setAuthor(author);
@@ -107,6 +213,12 @@ public class CommentService {
                 }).orElse(null); //Если комментарий не найден
     }
 
+    //Версия комментария для ETag, Last-Modified и If-Match
+    public Optional<ResourceVersion> getCommentVersion(Long id) {
+        return commentRepository.findVersionById(id)
+                .map(view -> new ResourceVersion(view.getVersion(), ResourceVersion.eTag(view.getVersion()), view.getUpdatedAt()));
+    }
+
     //Получаем комментарий по ID
     public CommentResponse getCommentByID(Long id) {
         //Ищем комментарий
@@ -125,4 +237,67 @@ public class CommentService {
     public void deleteComment(Long id) {
         commentRepository.deleteById(id);
     }
+
+    /**
+     * Получает страницу комментариев поста (keyset-пагинация по id, в порядке добавления).
+     *
+     * @param postId id поста.
+     * @param cursor курсор из предыдущей страницы или null для первой страницы.
+     * @param size размер страницы.
+     * @return страница комментариев и курсор следующей страницы (null, если страница последняя).
+     */
+    public CommentPage getCommentsByPost(Long postId, String cursor, int size) {
+        if (postId == null) {
+            throw new IllegalArgumentException("ID поста обязателен");
+        }
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+
+        //Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница
+        List<CommentResponse> commentList = commentRepository.findResponsesPageByPostId(
+                postId, CursorCodec.decode(cursor), Limit.of(size + 1));
+
+        boolean hasNext = commentList.size() > size;
+        List<CommentResponse> comments = hasNext ? commentList.subList(0, size) : commentList;
+        String nextCursor = hasNext ? CursorCodec.encode(comments.get(comments.size() - 1).getId()) : null;
+
+        return new CommentPage(comments, nextCursor);
+    }
+
+    /**
+     * Получает первые комментарии сразу для нескольких постов (например, для ленты) одним запросом.
+     *
+     * @param postIds id постов.
+     * @param limit сколько комментариев вернуть для каждого поста.
+     * @return id поста -> первые комментарии (пустой список, если комментариев нет), в порядке переданных id.
+     */
+    public Map<Long, List<CommentResponse>> getFirstCommentsForPosts(List<Long> postIds, int limit) {
+        if (postIds == null || postIds.isEmpty()) {
+            throw new IllegalArgumentException("Список постов обязателен");
+        }
+
+        if (postIds.size() > MAX_PREVIEW_POSTS) {
+            throw new IllegalArgumentException("Можно запросить не более " + MAX_PREVIEW_POSTS + " постов");
+        }
+
+        if (limit < 1 || limit > MAX_PREVIEW_COMMENTS) {
+            throw new IllegalArgumentException("Количество комментариев должно быть от 1 до " + MAX_PREVIEW_COMMENTS);
+        }
+
+        Map<Long, List<CommentResponse>> result = new LinkedHashMap<>();
+        postIds.forEach(postId -> result.put(postId, new ArrayList<>()));
+
+        commentRepository.findFirstCommentsByPostIds(postIds, limit)
+                .forEach(view -> result.get(view.getPostId()).add(new CommentResponse(
+                        view.getId(),
+                        view.getContent(),
+                        view.getAuthorId(),
+                        view.getAuthorUsername(),
+                        view.getAuthorEmail()
+                )));
+
+        return result;
+    }
 }
@@ -0,0 +1,274 @@
+package ru.umagadzhi.blogplatform.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.umagadzhi.blogplatform.dto.PostPage;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.events.PostCreatedEvent;
+import ru.umagadzhi.blogplatform.repository.FollowRepository;
+import ru.umagadzhi.blogplatform.repository.PostRepository;
+import ru.umagadzhi.blogplatform.utils.CursorCodec;
+import ru.umagadzhi.blogplatform.utils.LongRingBuffer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*Персональная лента: посты авторов и категорий, на которые подписан пользователь, от новых к старым.
+
+Ленты рассчитываются заранее (fan-out on write): новый пост после коммита асинхронно добавляется в ленты
+подписчиков. Лента — кольцевой буфер последних timeline-capacity id постов (long[] без упаковки),
+ленты хранятся в кэше ограниченного размера. Чтение страницы — поиск ленты в памяти и один запрос
+постов по id (findResponsesByIdIn), без выборки по таблице posts с фильтрами по подпискам.
+
+У популярных авторов (не меньше celebrity-threshold подписчиков) рассылка по лентам слишком дорогая,
+поэтому их посты хранятся в отдельном буфере автора и добавляются в ленту при чтении (fan-out on read).
+
+Ленты живут только в памяти узла. Ленту, которой нет в кэше (новый пользователь, вытеснение, перезапуск),
+восстанавливаем запросами по подпискам. Посты, созданные на других узлах, попадают в ленту не позже,
+чем через timeline-ttl-ms (лента пересобирается).*/
+@Slf4j
+@Service
+@Timed("blog.service") //Время выполнения каждого метода сервиса
+public class FeedService implements MeterBinder {
+    //Размер страницы ленты по умолчанию и максимально допустимый размер страницы
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    //Лента пользователя: id постов и авторы, на которых он подписан (для подмешивания постов популярных авторов)
+    private record Timeline(LongRingBuffer postIds, long[] followedAuthorIds) {}
+
+    private final FollowRepository followRepository;
+    private final PostRepository postRepository;
+    private final int timelineCapacity;
+    private final long celebrityThreshold;
+
+    //id пользователя -> лента
+    private final Cache<Long, Timeline> timelines;
+    //id популярного автора -> его последние посты
+    private final Cache<Long, LongRingBuffer> celebrityPosts;
+    //Популярные авторы, перечитываются из БД по расписанию
+    private volatile Set<Long> celebrityAuthorIds = Set.of();
+
+    public FeedService(FollowRepository followRepository, PostRepository postRepository,
+                       @Value("${blog.feed.timeline-capacity:500}") int timelineCapacity,
+                       @Value("${blog.feed.max-timelines:10000}") long maxTimelines,
+                       @Value("${blog.feed.timeline-ttl-ms:600000}") long timelineTtlMs,
+                       @Value("${blog.feed.celebrity-threshold:10000}") long celebrityThreshold) {
+        this.followRepository = followRepository;
+        this.postRepository = postRepository;
+        this.timelineCapacity = timelineCapacity;
+        this.celebrityThreshold = celebrityThreshold;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maxTimelines)
+                .expireAfterWrite(Duration.ofMillis(timelineTtlMs))
+                .recordStats() //Нужно для метрик попаданий и вытеснений
+                .build();
+        this.celebrityPosts = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(timelineTtlMs))
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, timelines, "feed.timelines");
+    }
+
+    /**
+     * Получает страницу ленты пользователя.
+     *
+     * @param userId id пользователя.
+     * @param cursor курсор из предыдущей страницы или null для первой страницы.
+     * @param size размер страницы.
+     * @return посты от новых к старым и курсор следующей страницы (null, если страница последняя).
+     */
+    public PostPage getFeed(Long userId, String cursor, int size) {
+        if (userId == null) {
+            throw new IllegalArgumentException("ID пользователя обязателен");
+        }
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+
+        //В ленте курсор указывает на последний отданный пост, следующая страница — посты с меньшими id
+        long beforeId = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : CursorCodec.decode(cursor);
+        Timeline timeline = timelines.get(userId, this::loadTimeline);
+
+        //Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница
+        long[] ids = timeline.postIds().valuesBelow(beforeId, size + 1);
+        Set<Long> celebrities = celebrityAuthorIds;
+        for (long authorId : timeline.followedAuthorIds()) {
+            if (celebrities.contains(authorId)) {
+                ids = mergeDescending(ids, celebrityPosts.get(authorId, this::loadAuthorPosts).valuesBelow(beforeId, size + 1), size + 1);
+            }
+        }
+
+        if (ids.length == 0) {
+            return new PostPage(List.of(), null);
+        }
+
+        boolean hasNext = ids.length > size;
+        List<Long> pageIds = Arrays.stream(ids).limit(size).boxed().toList();
+
+        //Посты одним запросом по первичному ключу. Удаленные посты просто пропускаем
+        Map<Long, PostResponse> postsById = postRepository.findResponsesByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(PostResponse::getId, Function.identity()));
+        List<PostResponse> posts = pageIds.stream()
+                .map(postsById::get)
+                .filter(post -> post != null)
+                .toList();
+
+        String nextCursor = hasNext ? CursorCodec.encode(pageIds.get(pageIds.size() - 1)) : null;
+
+        return new PostPage(posts, nextCursor);
+    }
+
+    //Подписка на автора. Возвращает false, если подписка уже была
+    public boolean followAuthor(Long userId, Long authorId) {
+        checkIds(userId, authorId, "автора");
+        if (userId.equals(authorId)) {
+            throw new IllegalArgumentException("Нельзя подписаться на самого себя");
+        }
+
+        boolean followed = followRepository.followAuthor(userId, authorId);
+        timelines.invalidate(userId); //Лента пересоберется с учетом новой подписки
+        return followed;
+    }
+
+    //Отписка от автора. Возвращает false, если подписки не было
+    public boolean unfollowAuthor(Long userId, Long authorId) {
+        checkIds(userId, authorId, "автора");
+        boolean unfollowed = followRepository.unfollowAuthor(userId, authorId);
+        timelines.invalidate(userId);
+        return unfollowed;
+    }
+
+    //Подписка на категорию. Возвращает false, если подписка уже была
+    public boolean followCategory(Long userId, Long categoryId) {
+        checkIds(userId, categoryId, "категории");
+        boolean followed = followRepository.followCategory(userId, categoryId);
+        timelines.invalidate(userId);
+        return followed;
+    }
+
+    //Отписка от категории. Возвращает false, если подписки не было
+    public boolean unfollowCategory(Long userId, Long categoryId) {
+        checkIds(userId, categoryId, "категории");
+        boolean unfollowed = followRepository.unfollowCategory(userId, categoryId);
+        timelines.invalidate(userId);
+        return unfollowed;
+    }
+
+    /**
+     * Рассылает новый пост по лентам подписчиков.
+     * Выполняется асинхронно после коммита транзакции, в которой создан пост, поэтому не задерживает ответ автору.
+     * Пост добавляется только в ленты, которые сейчас есть в кэше: остальные при восстановлении прочитают его из БД.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true) //fallbackExecution: пост мог быть создан вне транзакции
+    public void onPostCreated(PostCreatedEvent event) {
+        List<Long> followerIds;
+
+        if (celebrityAuthorIds.contains(event.authorId())) {
+            //Популярный автор: пост попадает в его буфер, подписчики автора увидят его при чтении ленты.
+            //Подписчикам категории пост по-прежнему рассылается
+            LongRingBuffer authorPosts = celebrityPosts.getIfPresent(event.authorId());
+            if (authorPosts != null) {
+                authorPosts.add(event.postId());
+            }
+            followerIds = followRepository.findCategoryFollowerIds(event.categoryId());
+        } else {
+            followerIds = followRepository.findPostFollowerIds(event.authorId(), event.categoryId());
+        }
+
+        for (Long followerId : followerIds) {
+            Timeline timeline = timelines.getIfPresent(followerId);
+            if (timeline != null) {
+                timeline.postIds().add(event.postId());
+            }
+        }
+    }
+
+    //Перечитывает список популярных авторов (первый раз — сразу после запуска)
+    @Scheduled(fixedDelayString = "${blog.feed.celebrity-refresh-interval-ms:300000}")
+    public void refreshCelebrities() {
+        celebrityAuthorIds = Set.copyOf(followRepository.findPopularAuthorIds(celebrityThreshold));
+        log.debug("Популярных авторов: {}", celebrityAuthorIds.size());
+    }
+
+    //Восстанавливает ленту из БД: последние посты авторов (кроме популярных) и категорий, на которые подписан пользователь
+    private Timeline loadTimeline(Long userId) {
+        List<Long> authorIds = followRepository.findFollowedAuthorIds(userId);
+        List<Long> categoryIds = followRepository.findFollowedCategoryIds(userId);
+
+        Set<Long> celebrities = celebrityAuthorIds;
+        List<Long> regularAuthorIds = authorIds.stream().filter(id -> !celebrities.contains(id)).toList();
+
+        Set<Long> postIds = new HashSet<>();
+        Limit limit = Limit.of(timelineCapacity);
+        if (!regularAuthorIds.isEmpty()) {
+            postIds.addAll(postRepository.findRecentIdsByAuthorIdIn(regularAuthorIds, limit));
+        }
+        if (!categoryIds.isEmpty()) {
+            postIds.addAll(postRepository.findRecentIdsByCategoryIdIn(categoryIds, limit));
+        }
+
+        long[] oldestFirst = postIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        long[] followedAuthorIds = authorIds.stream().mapToLong(Long::longValue).toArray();
+        return new Timeline(LongRingBuffer.of(timelineCapacity, oldestFirst), followedAuthorIds);
+    }
+
+    //Последние посты популярного автора
+    private LongRingBuffer loadAuthorPosts(Long authorId) {
+        List<Long> newestFirst = postRepository.findRecentIdsByAuthorIdIn(List.of(authorId), Limit.of(timelineCapacity));
+        long[] oldestFirst = new long[newestFirst.size()];
+        for (int i = 0; i < oldestFirst.length; i++) {
+            oldestFirst[i] = newestFirst.get(newestFirst.size() - 1 - i);
+        }
+        return LongRingBuffer.of(timelineCapacity, oldestFirst);
+    }
+
+    //Слияние двух списков id, отсортированных по убыванию, без повторов и не длиннее limit
+    static long[] mergeDescending(long[] first, long[] second, int limit) {
+        List<Long> merged = new ArrayList<>(Math.min(limit, first.length + second.length));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < first.length || j < second.length)) {
+            long next;
+            if (j >= second.length || (i < first.length && first[i] >= second[j])) {
+                next = first[i++];
+            } else {
+                next = second[j++];
+            }
+            if (merged.isEmpty() || merged.get(merged.size() - 1) != next) {
+                merged.add(next);
+            }
+        }
+        return merged.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void checkIds(Long userId, Long targetId, String target) {
+        if (userId == null || targetId == null) {
+            throw new IllegalArgumentException("ID пользователя и " + target + " обязательны");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package ru.umagadzhi.blogplatform.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.umagadzhi.blogplatform.events.LikeChangedEvent;
+import ru.umagadzhi.blogplatform.repository.PostRepository;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*Счетчик лайков постов без конкуренции за строку поста в БД.
+Добавление и удаление лайка меняют только дельту в памяти (LongAdder распределяет инкременты по ячейкам,
+а общим у потоков на одном "вирусном" посте остается только короткий счетчик добавляющих потоков).
+Раз в flush-interval накопленные дельты одной транзакцией прибавляются к posts.like_count —
+на каждый пост приходится не больше одного UPDATE за интервал, вместо UPDATE на каждый лайк.
+Возможный дрейф счетчика (падение узла до сброса) исправляется задачей сверки reconcile().*/
+@Slf4j
+@Component
+public class LikeCounter {
+    //Еще не сброшенные в БД изменения счетчиков: id поста -> дельта
+    private final ConcurrentHashMap<Long, PendingDelta> pendingDeltas = new ConcurrentHashMap<>();
+
+    private final PostRepository postRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public LikeCounter(PostRepository postRepository, TransactionTemplate transactionTemplate) {
+        this.postRepository = postRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    //Лайк добавлен или удален. Слушатель синхронный: дельта учитывается до ответа клиенту
+    @EventListener
+    public void onLikeChanged(LikeChangedEvent event) {
+        add(event.postId(), event.delta());
+    }
+
+    //Дельта, еще не записанная в БД. Итоговое значение счетчика = posts.like_count + pendingDelta
+    public long pendingDelta(Long postId) {
+        PendingDelta pending = pendingDeltas.get(postId);
+        return pending == null ? 0 : pending.sum.sum();
+    }
+
+    private void add(Long postId, long delta) {
+        while (true) {
+            PendingDelta pending = pendingDeltas.computeIfAbsent(postId, id -> new PendingDelta());
+            if (pending.enter()) {
+                try {
+                    pending.sum.add(delta);
+                } finally {
+                    pending.exit();
+                }
+                return;
+            }
+            //Запись как раз удаляется из карты при сбросе: берем новую
+            Thread.onSpinWait();
+        }
+    }
+
+    /*Удаляет пустую дельту, чтобы карта не росла вместе с количеством постов.
+    Запись удаляется, только если в нее никто не добавляет: пока она заблокирована для удаления,
+    новые добавления ждут, поэтому sum() точна, а дельта, добавленная в уже удаленную запись, невозможна.*/
+    private void removeIfEmpty(Long postId, PendingDelta pending) {
+        if (!pending.tryRetire()) {
+            return; //В запись сейчас добавляют, значит она не пуста — проверим при следующем сбросе
+        }
+        if (pending.sum.sum() == 0) {
+            pendingDeltas.remove(postId, pending);
+        } else {
+            pending.restore();
+        }
+    }
+
+    /**
+     * Сбрасывает накопленные дельты в БД одной транзакцией.
+     * Посты обновляются в порядке возрастания id, чтобы параллельные сбросы с разных узлов не взаимоблокировались.
+     */
+    @Scheduled(fixedDelayString = "${blog.likes.counter.flush-interval-ms:1000}")
+    public void flush() {
+        Map<Long, Long> batch = new TreeMap<>();
+
+        pendingDeltas.forEach((postId, pending) -> {
+            long delta = pending.sum.sumThenReset();
+            if (delta != 0) {
+                batch.put(postId, delta);
+            } else {
+                removeIfEmpty(postId, pending);
+            }
+        });
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(postRepository::addToLikeCount));
+        } catch (RuntimeException e) {
+            //Возвращаем дельты обратно, они будут записаны при следующем сбросе
+            batch.forEach(this::add);
+            log.warn("Не удалось сбросить счетчики лайков для {} постов", batch.size(), e);
+        }
+    }
+
+    /*Сверка счетчиков с таблицей likes (по умолчанию раз в сутки ночью).
+    Строки лайков, дельты которых еще не сброшены, уже есть в likes, поэтому в той же транзакции
+    из счетчиков вычитаются дельты этого узла — следующий сброс вернет их без двойного учета.
+    Дельты других узлов отсюда не видны, поэтому сверка рассчитана на один узел:
+    при нескольких узлах ее нужно отключить (blog.likes.counter.reconcile-cron=-).*/
+    @Scheduled(cron = "${blog.likes.counter.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        flush();
+        Integer fixed = transactionTemplate.execute(status -> {
+            Map<Long, Long> pending = pendingSnapshot();
+            int updated = postRepository.reconcileLikeCounts();
+            pending.forEach((postId, delta) -> postRepository.addToLikeCount(postId, -delta));
+            return updated;
+        });
+        log.info("Сверка счетчиков лайков завершена, исправлено постов: {}", fixed);
+    }
+
+    //Текущие несброшенные дельты без их обнуления, в порядке возрастания id поста
+    private Map<Long, Long> pendingSnapshot() {
+        Map<Long, Long> snapshot = new TreeMap<>();
+        pendingDeltas.forEach((postId, pending) -> {
+            long delta = pending.sum.sum();
+            if (delta != 0) {
+                snapshot.put(postId, delta);
+            }
+        });
+        return snapshot;
+    }
+
+    /*Дельта одного поста. state — число потоков, которые сейчас добавляют в sum,
+    или RETIRED, пока запись проверяется на пустоту и удаляется из карты*/
+    private static final class PendingDelta {
+        private static final int RETIRED = -1;
+
+        private final LongAdder sum = new LongAdder();
+        private final AtomicInteger state = new AtomicInteger();
+
+        //false, если запись удаляется и добавлять в нее нельзя
+        boolean enter() {
+            int writers;
+            do {
+                writers = state.get();
+                if (writers == RETIRED) {
+                    return false;
+                }
+            } while (!state.compareAndSet(writers, writers + 1));
+            return true;
+        }
+
+        void exit() {
+            state.decrementAndGet();
+        }
+
+        boolean tryRetire() {
+            return state.compareAndSet(0, RETIRED);
+        }
+
+        void restore() {
+            state.set(0);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ru.umagadzhi.blogplatform.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.umagadzhi.blogplatform.dto.LikeRequest;
+import ru.umagadzhi.blogplatform.events.LikeChangedEvent;
+import ru.umagadzhi.blogplatform.repository.LikeIdAllocator;
+import ru.umagadzhi.blogplatform.repository.LikeRepositoryCustom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*Отложенная (write-behind) запись лайков.
+Включается свойством blog.likes.ingestion.enabled. В этом режиме запрос на лайк не обращается к БД:
+лайк кладется в ограниченную очередь в памяти, а фоновая задача пачками вставляет их в таблицу likes
+через JDBC batch. Повторы отсекаются уникальным индексом (post_id, user_id) и ON CONFLICT DO NOTHING.
+
+Гарантии (ack-семантика):
+- ACCEPTED — лайк принят в очередь, но еще НЕ сохранен. Он будет записан в течение flush-interval
+  и потеряется, если узел упадет до сброса (при штатной остановке очередь сбрасывается).
+  Если БД временно недоступна, пачка не отбрасывается: она остается в памяти и повторяется при следующих сбросах;
+- DUPLICATE — такой же лайк уже ждет записи в очереди, повторно он не добавляется;
+- REJECTED — очередь заполнена (backpressure), клиент должен повторить запрос позже.
+Лайки на несуществующие пост или пользователя отбрасываются при записи (нарушение внешнего ключа).*/
+@Slf4j
+@Component
+public class LikeIngestionQueue {
+
+    public enum Result { ACCEPTED, DUPLICATE, REJECTED }
+
+    //Ключ лайка для дедупликации
+    private record LikeKey(Long postId, Long userId) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LikeIdAllocator likeIdAllocator;
+    //Вставленные лайки обрабатывают LikeCounter и TrendingService
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+
+    //Ограниченная очередь лайков, ожидающих записи
+    private final BlockingQueue<LikeKey> queue;
+    //Лайки, которые сейчас находятся в очереди или записываются (для дедупликации повторных кликов)
+    private final Set<LikeKey> pending = ConcurrentHashMap.newKeySet();
+    //Записываемая пачка. Если записать ее не удалось, она остается здесь до следующего сброса
+    private final List<LikeKey> batch;
+    //Сброс по расписанию и при остановке не должны выполняться одновременно. ReentrantLock, а не synchronized:
+    //под блокировкой идут запросы к БД, а виртуальный поток не должен блокировать поток-носитель
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public LikeIngestionQueue(JdbcTemplate jdbcTemplate, LikeIdAllocator likeIdAllocator, ApplicationEventPublisher eventPublisher,
+                              @Value("${blog.likes.ingestion.enabled:false}") boolean enabled,
+                              @Value("${blog.likes.ingestion.capacity:10000}") int capacity,
+                              @Value("${blog.likes.ingestion.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.likeIdAllocator = likeIdAllocator;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    //Включен ли режим отложенной записи лайков
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит лайк в очередь на запись.
+     *
+     * @param likeRequest id поста и пользователя.
+     * @return результат постановки в очередь.
+     */
+    public Result offer(LikeRequest likeRequest) {
+        if (likeRequest.postId() == null || likeRequest.userId() == null) {
+            throw new IllegalArgumentException("ID поста и пользователя обязательны");
+        }
+
+        LikeKey key = new LikeKey(likeRequest.postId(), likeRequest.userId());
+
+        if (!pending.add(key)) {
+            return Result.DUPLICATE;
+        }
+
+        if (!queue.offer(key)) {
+            pending.remove(key);
+            return Result.REJECTED;
+        }
+
+        return Result.ACCEPTED;
+    }
+
+    //Сбрасываем очередь в БД пачками по batchSize
+    @Scheduled(fixedDelayString = "${blog.likes.ingestion.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!batch.isEmpty() || queue.drainTo(batch, batchSize) > 0) {
+                try {
+                    insertBatch(batch);
+                } catch (RuntimeException e) {
+                    //БД недоступна или пул соединений исчерпан. Пачка и ее ключи в pending сохраняются,
+                    //остаток очереди не разбираем: повторим при следующем сбросе
+                    log.warn("Не удалось записать пачку из {} лайков, повтор при следующем сбросе", batch.size(), e);
+                    return;
+                }
+                batch.forEach(pending::remove);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //При штатной остановке приложения записываем все, что осталось в очереди
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void insertBatch(List<LikeKey> batch) {
+        try {
+            int[][] counts = jdbcTemplate.batchUpdate(LikeRepositoryCustom.INSERT_LIKE_SQL, batch, batch.size(), (ps, key) -> {
+                ps.setLong(1, likeIdAllocator.nextId());
+                ps.setLong(2, key.postId());
+                ps.setLong(3, key.userId());
+            });
+
+            //0 строк — лайк уже был в БД, счетчик увеличиваем только для реально вставленных
+            int index = 0;
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    if (count > 0) {
+                        eventPublisher.publishEvent(new LikeChangedEvent(batch.get(index).postId(), 1));
+                    }
+                    index++;
+                }
+            }
+        } catch (DataIntegrityViolationException e) {
+            //В пачке есть лайк на несуществующий пост или пользователя — записываем по одному, пропуская ошибочные
+            batch.forEach(this::insertOne);
+        }
+    }
+
+    private void insertOne(LikeKey key) {
+        try {
+            if (jdbcTemplate.update(LikeRepositoryCustom.INSERT_LIKE_SQL, likeIdAllocator.nextId(), key.postId(), key.userId()) > 0) {
+                eventPublisher.publishEvent(new LikeChangedEvent(key.postId(), 1));
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Лайк отброшен: пост {} или пользователь {} не найден", key.postId(), key.userId());
+        }
+    }
+}
@@ -1,78 +1,144 @@
 package ru.umagadzhi.blogplatform.services;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import ru.umagadzhi.blogplatform.dto.BulkItemResult;
 import ru.umagadzhi.blogplatform.dto.LikeRequest;
 import ru.umagadzhi.blogplatform.dto.LikeResponse;
 import ru.umagadzhi.blogplatform.dto.UserResponse;
 import ru.umagadzhi.blogplatform.entities.Like;
 import ru.umagadzhi.blogplatform.entities.Post;
 import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.events.LikeChangedEvent;
+import ru.umagadzhi.blogplatform.repository.LikeIdAllocator;
 import ru.umagadzhi.blogplatform.repository.LikeRepository;
+import ru.umagadzhi.blogplatform.repository.LikeRepositoryCustom;
 import ru.umagadzhi.blogplatform.repository.PostRepository;
 import ru.umagadzhi.blogplatform.repository.UserRepository;
+import ru.umagadzhi.blogplatform.utils.BulkRequests;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
+@Timed("blog.service") //Время выполнения каждого метода сервиса
 public class LikeService {
     private final LikeRepository likeRepository;
     private final UserRepository userRepository;
     private final PostRepository postRepository;
-
-    public LikeService(LikeRepository likeRepository, UserRepository userRepository, PostRepository postRepository) {
+    private final LikeCounter likeCounter;
+    private final JdbcTemplate jdbcTemplate;
+    private final LikeIdAllocator likeIdAllocator;
+    //Изменения лайков обрабатывают счетчик лайков (LikeCounter) и рейтинг популярных постов (TrendingService)
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LikeService(LikeRepository likeRepository, UserRepository userRepository, PostRepository postRepository,
+                       LikeCounter likeCounter, JdbcTemplate jdbcTemplate, LikeIdAllocator likeIdAllocator,
+                       ApplicationEventPublisher eventPublisher) {
         this.likeRepository = likeRepository;
         this.userRepository = userRepository;
         this.postRepository = postRepository;
+        this.likeCounter = likeCounter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.likeIdAllocator = likeIdAllocator;
+        this.eventPublisher = eventPublisher;
     }
 
-    //Метод для добавления лайка
-    public LikeResponse addLike(LikeRequest likeRequest) {
-        //Проверяем существует ли пользователь/автор
-        User user = userRepository.findById(likeRequest.userId())
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь с id = " + likeRequest.userId() + " не найден."));
-
-        //Проверяем существует ли пост, куда добавляется комментарий
-        Post post = postRepository.findById(likeRequest.postId())
-                .orElseThrow(() -> new IllegalArgumentException("Пост с id = " + likeRequest.postId() + " не найден."));
+    //Результат постановки лайка: created = false, если пользователь уже лайкнул пост (повторный клик)
+    public record AddLikeResult(LikeResponse likeResponse, boolean created) {}
 
-        // Проверяем, не поставил ли пользователь лайк ранее
-        if (likeRepository.existsLikeByPostAndUser(post, user)) {
-            throw new IllegalStateException("Вы уже лайкнули этот пост");
+    //Метод для добавления лайка. Один запрос к БД: пост и пользователь не загружаются,
+    //их существование проверяют внешние ключи, повторный лайк отсекает уникальный индекс
+    public AddLikeResult addLike(LikeRequest likeRequest) {
+        LikeRepositoryCustom.LikeRow like = likeRepository.insertLike(likeRequest.postId(), likeRequest.userId());
+        if (like.created()) {
+            eventPublisher.publishEvent(new LikeChangedEvent(likeRequest.postId(), 1));
         }
 
-        Like like = new Like();
-        like.setPost(post);
-        like.setUser(user);
-
-        Like savedLike = likeRepository.save(like);
-
-        return new LikeResponse(savedLike.getId(), new UserResponse(user.getId(), user.getUsername(), user.getEmail()));
+        LikeResponse likeResponse = new LikeResponse(like.id(), new UserResponse(like.userId(), like.username(), like.email()));
+        return new AddLikeResult(likeResponse, like.created());
     }
 
-    //Удаление лайка у поста
-    @Transactional
-    public void removeLike(Long postId, Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new IllegalArgumentException("Пост не найден"));
+    /**
+     * Пакетное добавление лайков. Пользователи и посты проверяются одним запросом на тип,
+     * лайки вставляются одним JDBC batch с INSERT ... ON CONFLICT DO NOTHING.
+     *
+     * @param likeRequests лайки для добавления.
+     * @return результат по каждому элементу: CREATED (id не возвращается), DUPLICATE (лайк уже был) или FAILED.
+     */
+    public List<BulkItemResult> addLikes(List<LikeRequest> likeRequests) {
+        BulkRequests.checkSize(likeRequests);
+
+        Set<Long> userIds = userRepository.findAllById(BulkRequests.referencedIds(likeRequests, LikeRequest::userId)).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Set<Long> postIds = postRepository.findExistingIds(BulkRequests.referencedIds(likeRequests, LikeRequest::postId));
+
+        BulkItemResult[] results = new BulkItemResult[likeRequests.size()];
+        List<LikeRequest> likes = new ArrayList<>();
+        List<Integer> likeIndexes = new ArrayList<>();
+        Set<LikeRequest> seen = new HashSet<>();
+
+        for (int i = 0; i < likeRequests.size(); i++) {
+            LikeRequest likeRequest = likeRequests.get(i);
+            if (likeRequest == null || likeRequest.userId() == null || !userIds.contains(likeRequest.userId())) {
+                results[i] = BulkItemResult.failed(i, "Пользователь с id = " + (likeRequest == null ? null : likeRequest.userId()) + " не найден.");
+            } else if (likeRequest.postId() == null || !postIds.contains(likeRequest.postId())) {
+                results[i] = BulkItemResult.failed(i, "Пост с id = " + likeRequest.postId() + " не найден.");
+            } else if (!seen.add(likeRequest)) {
+                results[i] = BulkItemResult.duplicate(i); //Повтор внутри одного запроса
+            } else {
+                likes.add(likeRequest);
+                likeIndexes.add(i);
+            }
+        }
 
-        // Проверяем, есть ли лайк перед удалением
-        if (!likeRepository.existsLikeByPostAndUser(post, user)) {
-            throw new IllegalStateException("Лайка не существует");
+        if (!likes.isEmpty()) {
+            int[][] counts = jdbcTemplate.batchUpdate(LikeRepositoryCustom.INSERT_LIKE_SQL, likes, likes.size(), (ps, like) -> {
+                ps.setLong(1, likeIdAllocator.nextId());
+                ps.setLong(2, like.postId());
+                ps.setLong(3, like.userId());
+            });
+
+            //0 строк — лайк уже был в БД
+            int[] rowCounts = counts[0];
+            for (int i = 0; i < likes.size(); i++) {
+                int index = likeIndexes.get(i);
+                if (rowCounts[i] > 0) {
+                    eventPublisher.publishEvent(new LikeChangedEvent(likes.get(i).postId(), 1));
+                    results[index] = BulkItemResult.created(index, null);
+                } else {
+                    results[index] = BulkItemResult.duplicate(index);
+                }
+            }
         }
 
-        likeRepository.deleteByPostAndUser(post, user);
+        return Arrays.asList(results);
+    }
+
+    //Удаление лайка у поста одним DELETE ... RETURNING. Возвращает false, если лайка не было
+    public boolean removeLike(Long postId, Long userId) {
+        boolean removed = likeRepository.deleteLike(postId, userId);
+        if (removed) {
+            eventPublisher.publishEvent(new LikeChangedEvent(postId, -1));
+        }
+        return removed;
     }
 
     //Получить количество лайков у поста
     public long getLikesCount(Long postId) {
-        Post post = postRepository.findById(postId)
+        //Читаем денормализованный счетчик вместо COUNT(*) по таблице likes
+        long storedCount = postRepository.findLikeCountById(postId)
                 .orElseThrow(() -> new IllegalArgumentException("Пост не найден"));
 
-        return likeRepository.countByPost(post);
+        //Добавляем изменения, которые еще не сброшены в БД
+        return storedCount + likeCounter.pendingDelta(postId);
     }
 
     //Получить список пользователей лайкнувших пост
@@ -0,0 +1,308 @@
+package ru.umagadzhi.blogplatform.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.umagadzhi.blogplatform.dto.CommentResponse;
+import ru.umagadzhi.blogplatform.dto.LiveUpdate;
+import ru.umagadzhi.blogplatform.events.CommentCreatedEvent;
+import ru.umagadzhi.blogplatform.events.LikeChangedEvent;
+import ru.umagadzhi.blogplatform.repository.CommentRepository;
+import ru.umagadzhi.blogplatform.repository.PostRepository;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/*Рассылка live-обновлений постов (число лайков и новые комментарии) подписчикам SSE.
+
+События лайков и комментариев только помечают пост как измененный (и только если на него кто-то подписан).
+Раз в coalesce-window-ms измененные посты обрабатываются пачкой: счетчики лайков и новые комментарии
+читаются двумя запросами на все посты сразу, обновление каждого поста сериализуется в JSON один раз.
+Поэтому популярный пост дает не больше одного обновления за окно, сколько бы лайков он ни получил.
+
+Подключение без событий не занимает поток (асинхронный запрос Tomcat), только объект подписчика.
+Отправка идет в виртуальных потоках, у каждого подписчика своя очередь и не больше одной отправки за раз:
+медленный клиент не задерживает остальных. Если очередь клиента переполнена, соединение закрывается —
+клиент переподключится (EventSource делает это сам) и получит актуальное состояние.
+
+События обрабатываются на том узле, где они произошли: подписчики, подключенные к другим узлам,
+увидят изменение при следующем событии этого поста на своем узле.*/
+@Slf4j
+@Component
+public class LiveUpdateHub implements MeterBinder {
+    //Максимальное число постов в одной подписке и неотправленных сообщений у одного подписчика
+    public static final int MAX_POSTS_PER_SUBSCRIPTION = 50;
+    private static final int MAX_QUEUED_MESSAGES = 100;
+    //Не больше стольких новых комментариев поста в одном обновлении, остальные клиент может дочитать страницей
+    private static final int MAX_COMMENTS_PER_UPDATE = 20;
+    //Сообщение для поддержания соединения (SSE-комментарий, клиент его не обрабатывает)
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final LikeCounter likeCounter;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+
+    //id поста -> подписчики
+    private final Map<Long, Set<Subscriber>> subscribersByPost = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    //Измененные за текущее окно посты -> id новых комментариев
+    private final Map<Long, Queue<Long>> changedPosts = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LiveUpdateHub(PostRepository postRepository, CommentRepository commentRepository, LikeCounter likeCounter,
+                         ObjectMapper objectMapper,
+                         @Value("${blog.live.timeout-ms:1800000}") long timeoutMs,
+                         @Value("${blog.live.max-subscribers:20000}") int maxSubscribers) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.likeCounter = likeCounter;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("blog.live.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Открытые SSE-подключения live-обновлений")
+                .register(registry);
+    }
+
+    /**
+     * Подписывает клиента на обновления постов. Первым сообщением по каждому посту приходит текущее число лайков.
+     *
+     * @param postIds id постов (не больше MAX_POSTS_PER_SUBSCRIPTION).
+     * @return SSE-соединение с клиентом.
+     * @throws RejectedExecutionException если открыто слишком много подключений.
+     */
+    public SseEmitter subscribe(Collection<Long> postIds) {
+        Set<Long> ids = Set.copyOf(postIds);
+        if (ids.isEmpty() || ids.size() > MAX_POSTS_PER_SUBSCRIPTION) {
+            throw new IllegalArgumentException("Количество постов в подписке должно быть от 1 до " + MAX_POSTS_PER_SUBSCRIPTION);
+        }
+
+        List<LiveUpdate> initial = loadLikeCounts(ids).entrySet().stream()
+                .map(entry -> new LiveUpdate(entry.getKey(), entry.getValue(), List.of()))
+                .toList();
+        if (initial.size() < ids.size()) {
+            throw new IllegalArgumentException("Пост не найден");
+        }
+
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RejectedExecutionException("Слишком много live-подключений");
+        }
+
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), ids);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+
+        //Добавляем под блокировкой записи карты: иначе unsubscribe другого клиента может удалить пустое множество
+        //между его получением и добавлением, и подписчик останется в множестве, которого уже нет в карте
+        ids.forEach(id -> subscribersByPost.compute(id, (key, subscribers) -> {
+            Set<Subscriber> result = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            result.add(subscriber);
+            return result;
+        }));
+        initial.forEach(update -> subscriber.enqueue(toEvent(update)));
+        return subscriber.emitter;
+    }
+
+    //Лайк добавлен или снят. Слушатель синхронный, поэтому только помечаем пост
+    @EventListener
+    public void onLikeChanged(LikeChangedEvent event) {
+        markChanged(event.postId(), null);
+    }
+
+    //Комментарий добавлен (после коммита транзакции)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        markChanged(event.postId(), event.commentId());
+    }
+
+    //Рассылает обновления постов, измененных за прошедшее окно
+    @Scheduled(fixedDelayString = "${blog.live.coalesce-window-ms:500}")
+    public void publishChanges() {
+        if (changedPosts.isEmpty()) {
+            return;
+        }
+
+        //Забираем изменения поштучно: события, пришедшие во время рассылки, попадут в следующее окно
+        Map<Long, Queue<Long>> changed = new HashMap<>();
+        for (Long postId : changedPosts.keySet()) {
+            Queue<Long> commentIds = changedPosts.remove(postId);
+            if (commentIds != null) {
+                changed.put(postId, commentIds);
+            }
+        }
+
+        Map<Long, Long> likeCounts = loadLikeCounts(changed.keySet());
+        List<Long> commentIds = changed.values().stream()
+                .flatMap(Collection::stream)
+                .toList();
+        Map<Long, List<CommentResponse>> commentsByPost = new HashMap<>();
+        if (!commentIds.isEmpty()) {
+            Map<Long, CommentResponse> comments = commentRepository.findResponsesByIdIn(commentIds).stream()
+                    .collect(Collectors.toMap(CommentResponse::getId, comment -> comment));
+            changed.forEach((postId, ids) -> commentsByPost.put(postId, ids.stream()
+                    .map(comments::get)
+                    .filter(comment -> comment != null)
+                    .toList()));
+        }
+
+        likeCounts.forEach((postId, likeCount) -> {
+            //Событие сериализуется один раз для всех подписчиков поста
+            Set<ResponseBodyEmitter.DataWithMediaType> event = toEvent(new LiveUpdate(postId, likeCount, commentsByPost.getOrDefault(postId, List.of())));
+            subscribersByPost.getOrDefault(postId, Set.of()).forEach(subscriber -> subscriber.enqueue(event));
+        });
+    }
+
+    //Поддерживаем простаивающие соединения (прокси закрывают их по таймауту) и находим отключившихся клиентов
+    @Scheduled(fixedDelayString = "${blog.live.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        Set<Subscriber> all = ConcurrentHashMap.newKeySet();
+        subscribersByPost.values().forEach(all::addAll);
+        all.forEach(subscriber -> subscriber.enqueue(HEARTBEAT));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Set<Subscriber> all = ConcurrentHashMap.newKeySet();
+        subscribersByPost.values().forEach(all::addAll);
+        all.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdown();
+    }
+
+    private void markChanged(Long postId, Long commentId) {
+        if (!subscribersByPost.containsKey(postId)) {
+            return; //Никто не подписан на пост
+        }
+
+        //Очередь меняется только под блокировкой записи карты: publishChanges забирает ее через remove,
+        //и комментарий не может попасть в уже прочитанную очередь
+        changedPosts.compute(postId, (id, commentIds) -> {
+            Queue<Long> result = commentIds == null ? new ConcurrentLinkedQueue<>() : commentIds;
+            if (commentId != null && result.size() < MAX_COMMENTS_PER_UPDATE) {
+                result.add(commentId);
+            }
+            return result;
+        });
+    }
+
+    //Число лайков: счетчик из БД плюс дельта, еще не сброшенная LikeCounter
+    private Map<Long, Long> loadLikeCounts(Collection<Long> postIds) {
+        return postRepository.findLikeCountsByIdIn(postIds).stream()
+                .collect(Collectors.toMap(PostRepository.LikeCountView::getId,
+                        view -> view.getLikeCount() + likeCounter.pendingDelta(view.getId())));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        subscriberCount.decrementAndGet();
+        for (Long postId : subscriber.postIds) {
+            subscribersByPost.computeIfPresent(postId, (id, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> toEvent(LiveUpdate update) {
+        try {
+            return SseEmitter.event()
+                    .name("update")
+                    .data(objectMapper.writeValueAsString(update), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //Подключенный клиент: очередь сообщений и признак того, что отправка уже идет
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> postIds;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Set<Long> postIds) {
+            this.emitter = emitter;
+            this.postIds = postIds;
+        }
+
+        private void enqueue(Set<ResponseBodyEmitter.DataWithMediaType> message) {
+            if (closed.get()) {
+                return;
+            }
+            if (queued.incrementAndGet() > MAX_QUEUED_MESSAGES) {
+                //Клиент не успевает читать — закрываем соединение, после переподключения он получит актуальные данные
+                log.debug("Очередь live-обновлений переполнена, соединение закрыто");
+                emitter.complete();
+                unsubscribe(this);
+                return;
+            }
+            queue.add(message);
+            drain();
+        }
+
+        //Отправляет сообщения по порядку, не больше одной отправки одновременно
+        private void drain() {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            senders.execute(() -> {
+                try {
+                    Set<ResponseBodyEmitter.DataWithMediaType> message;
+                    while ((message = queue.poll()) != null) {
+                        queued.decrementAndGet();
+                        emitter.send(message);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    //Клиент отключился
+                    emitter.completeWithError(e);
+                    unsubscribe(this);
+                } finally {
+                    sending.set(false);
+                }
+                //Сообщение могло прийти после опустошения очереди, но до сброса признака отправки
+                if (!queue.isEmpty() && !closed.get()) {
+                    drain();
+                }
+            });
+        }
+    }
+}
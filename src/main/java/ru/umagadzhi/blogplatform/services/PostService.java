@@ -1,31 +1,67 @@
 package ru.umagadzhi.blogplatform.services;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import ru.umagadzhi.blogplatform.config.CacheConfig;
+import ru.umagadzhi.blogplatform.dto.BulkItemResult;
 import ru.umagadzhi.blogplatform.dto.CategoryResponse;
+import ru.umagadzhi.blogplatform.dto.PostPage;
 import ru.umagadzhi.blogplatform.dto.PostRequest;
 import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.dto.PostSummaryPage;
+import ru.umagadzhi.blogplatform.dto.PostSummaryResponse;
+import ru.umagadzhi.blogplatform.dto.ResourceVersion;
 import ru.umagadzhi.blogplatform.dto.UserResponse;
 import ru.umagadzhi.blogplatform.entities.Category;
 import ru.umagadzhi.blogplatform.entities.Post;
 import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.events.PostCategoryChangedEvent;
+import ru.umagadzhi.blogplatform.events.PostCreatedEvent;
 import ru.umagadzhi.blogplatform.repository.CategoryRepository;
 import ru.umagadzhi.blogplatform.repository.PostRepository;
 import ru.umagadzhi.blogplatform.repository.UserRepository;
-
+import ru.umagadzhi.blogplatform.utils.BulkRequests;
+import ru.umagadzhi.blogplatform.utils.CursorCodec;
+import ru.umagadzhi.blogplatform.utils.Excerpts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("blog.service") //Время выполнения каждого метода сервиса
 public class PostService {
+    //Размер страницы по умолчанию и максимально допустимый размер страницы
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    //Ограничения поиска: размер страницы и глубина выдачи (дальше релевантность уже не имеет смысла)
+    public static final int MAX_SEARCH_PAGE_SIZE = 100;
+    public static final int MAX_SEARCH_RESULTS = 1000;
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    //Событие о новом посте обрабатывает лента подписчиков (FeedService)
+    private final ApplicationEventPublisher eventPublisher;
 
     // Конструктор с зависимостью для postRepository,userRepository,categoryRepository
-    public PostService(PostRepository postRepository, UserRepository userRepository, CategoryRepository categoryRepository) {
+    public PostService(PostRepository postRepository, UserRepository userRepository, CategoryRepository categoryRepository,
+                       ApplicationEventPublisher eventPublisher) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     //Добавление нового поста в БД
@@ -46,11 +82,13 @@ public class PostService {
         Post post = new Post();
         post.setTitle(postRequest.getTitle());
         post.setContent(postRequest.getContent());
+        post.setExcerpt(Excerpts.of(postRequest.getContent()));
         post.setAuthor(author);
         post.setCategory(category);
 
         // Сохраняем пост в базе данных
         Post savedPost = postRepository.save(post);
+        eventPublisher.publishEvent(new PostCreatedEvent(savedPost.getId(), author.getId(), category.getId()));
 
         // Возвращаем ответ только что созданного поста
         return new PostResponse(
@@ -64,8 +102,88 @@ public class PostService {
         );
     }
 
-    //Обновление поста
-    public PostResponse updatePost(PostRequest postRequest) {
+    /**
+     * Пакетное создание постов. Авторы и категории загружаются одним запросом на тип,
+     * посты вставляются в одной транзакции пакетами JDBC.
+     *
+     * @param postRequests посты для создания.
+     * @return результат по каждому элементу запроса: id созданного поста или причина отказа.
+     */
+    @Transactional
+    public List<BulkItemResult> createPosts(List<PostRequest> postRequests) {
+        BulkRequests.checkSize(postRequests);
+
+        Map<Long, User> authors = userRepository.findAllById(BulkRequests.referencedIds(postRequests, PostRequest::getAuthorId)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Category> categories = categoryRepository.findAllById(BulkRequests.referencedIds(postRequests, PostRequest::getCategoryId)).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        BulkItemResult[] results = new BulkItemResult[postRequests.size()];
+        List<Post> posts = new ArrayList<>();
+        List<Integer> postIndexes = new ArrayList<>();
+
+        for (int i = 0; i < postRequests.size(); i++) {
+            PostRequest postRequest = postRequests.get(i);
+            String error = validateNewPost(postRequest, authors, categories);
+            if (error != null) {
+                results[i] = BulkItemResult.failed(i, error);
+                continue;
+            }
+
+            Post post = new Post();
+            post.setTitle(postRequest.getTitle());
+            post.setContent(postRequest.getContent());
+            post.setExcerpt(Excerpts.of(postRequest.getContent()));
+            post.setAuthor(authors.get(postRequest.getAuthorId()));
+            post.setCategory(categories.get(postRequest.getCategoryId()));
+            posts.add(post);
+            postIndexes.add(i);
+        }
+
+        //id присваиваются сразу (из последовательности), сами вставки уходят пакетами при коммите
+        postRepository.saveAll(posts);
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            results[postIndexes.get(i)] = BulkItemResult.created(postIndexes.get(i), post.getId());
+            //Слушатели получат событие только после коммита транзакции
+            eventPublisher.publishEvent(new PostCreatedEvent(post.getId(), post.getAuthor().getId(), post.getCategory().getId()));
+        }
+
+        return Arrays.asList(results);
+    }
+
+    //Причина, по которой пост нельзя создать, или null, если данные корректны
+    private static String validateNewPost(PostRequest postRequest, Map<Long, User> authors, Map<Long, Category> categories) {
+        if (postRequest == null) {
+            return "Пост не передан";
+        }
+        if (postRequest.getId() != null) {
+            return "Нельзя передавать id при создании поста.";
+        }
+        if (postRequest.getTitle() == null || postRequest.getTitle().trim().isEmpty()) {
+            return "Название поста обязательно";
+        }
+        if (postRequest.getContent() == null || postRequest.getContent().trim().isEmpty()) {
+            return "Контент для поста обязателен";
+        }
+        if (postRequest.getAuthorId() == null || !authors.containsKey(postRequest.getAuthorId())) {
+            return "Пользователь с id = " + postRequest.getAuthorId() + " не найден.";
+        }
+        if (postRequest.getCategoryId() == null || !categories.containsKey(postRequest.getCategoryId())) {
+            return "Категория с id = " + postRequest.getCategoryId() + " не найдена.";
+        }
+        return null;
+    }
+
+    /**
+     * Обновление поста.
+     *
+     * @param postRequest новые данные поста.
+     * @param expectedVersion версия, которую видел клиент (If-Match), или null без проверки.
+     * @return обновленный пост или null, если пост не найден.
+     * @throws ObjectOptimisticLockingFailureException если пост изменился после того, как клиент его прочитал.
+     */
+    public PostResponse updatePost(PostRequest postRequest, Long expectedVersion) {
         if (postRequest.getId() == null) {
             throw new IllegalArgumentException("ID поста обязателен");
         }
@@ -96,14 +214,24 @@ public class PostService {
         //Ищем пост по id
         return postRepository.findById(postRequest.getId())
                 .map(post -> {
-                    //Обновляем данные поста
+                    if (expectedVersion != null && post.getVersion() != expectedVersion) {
+                        throw new ObjectOptimisticLockingFailureException(Post.class, post.getId());
+                    }
+
+                    //Обновляем данные поста. Если пост изменят между чтением и сохранением,
+                    //Hibernate сверит версию при merge и тоже выбросит ObjectOptimisticLockingFailureException
                     post.setTitle(postRequest.getTitle());
                     post.setContent(postRequest.getContent());
+                    post.setExcerpt(Excerpts.of(postRequest.getContent()));
+                    boolean categoryChanged = !category.getId().equals(post.getCategory().getId());
                     post.setAuthor(author);
                     post.setCategory(category);
 
                     // Сохраняем обновленный пост в базе данных
                     Post updatedPost = postRepository.save(post);
+                    if (categoryChanged) {
+                        eventPublisher.publishEvent(new PostCategoryChangedEvent(updatedPost.getId(), category.getId()));
+                    }
 
                     //Возвращаем обновленный пост
                     return new PostResponse(
@@ -116,30 +244,27 @@ public class PostService {
                 }).orElse(null); //Если пост с таким id не найден
     }
 
-    //Получить пост по его id
-    public PostResponse getPostById(Long id) {
-        // Ищем пост, если нет - выбрасываем исключение
-        Post post = postRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Пост с id = " + id + " не найден."));
+    //Версия поста для ETag, Last-Modified и If-Match. Читается из БД на каждый запрос, без кэша
+    public Optional<ResourceVersion> getPostVersion(Long id) {
+        return postRepository.findVersionById(id)
+                .map(view -> new ResourceVersion(
+                        view.getVersion(),
+                        ResourceVersion.eTag(view.getVersion(), view.getCategoryVersion()),
+                        view.getUpdatedAt().isAfter(view.getCategoryUpdatedAt())
+                                ? view.getUpdatedAt() : view.getCategoryUpdatedAt()));
+    }
 
-        //Возвращаем DTO объект поста
-        return new PostResponse(
-                post.getId(),
-                post.getTitle(),
-                post.getContent(),
-                new UserResponse(
-                        post.getAuthor().getId(),
-                        post.getAuthor().getUsername(),
-                        post.getAuthor().getEmail()
-                ),
-                new CategoryResponse(
-                        post.getCategory().getId(),
-                        post.getCategory().getName()
-                )
-        );
+    /*Получить пост по его id в версии version (см. getPostVersion).
+    Версия входит в ключ кэша: после изменения поста или его категории на любом узле запросы идут по новому ключу,
+    поэтому тело ответа не бывает старше ETag, а старые записи просто вытесняются по времени и размеру*/
+    @Cacheable(cacheNames = CacheConfig.POSTS, key = "#id + ':' + #version.eTag()")
+    public PostResponse getPostById(Long id, ResourceVersion version) {
+        // Ищем пост (сразу в виде DTO вместе с автором и категорией), если нет - выбрасываем исключение
+        return postRepository.findResponseById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Пост с id = " + id + " не найден."));
     }
 
-    //Удаляем пост по его ID
+    //Удаляем пост по его ID. Кэш не трогаем: у удаленного поста нет версии, и его записи больше не читаются
     public void deletePost(Long id) {
         postRepository.deleteById(id);
     }
@@ -150,29 +275,14 @@ public class PostService {
             throw new IllegalArgumentException("Название категории обязательно");
         }
 
-        List<Post> postList = postRepository.findByCategory_Name(categoryName);
+        //Посты выбираются одним запросом сразу в виде DTO
+        List<PostResponse> postList = postRepository.findResponsesByCategoryName(categoryName);
 
         if (postList.isEmpty()) {
             throw new IllegalArgumentException("Нет постов в данной категории");
         }
 
-        //Преобразуем в PostResponse в возвращаем список
-        return postList.stream()
-                .map(post -> new PostResponse(
-                        post.getId(),
-                        post.getTitle(),
-                        post.getContent(),
-                        new UserResponse(
-                                post.getAuthor().getId(),
-                                post.getAuthor().getUsername(),
-                                post.getAuthor().getEmail()
-                        ),
-                        new CategoryResponse(
-                                post.getCategory().getId(),
-                                post.getCategory().getName()
-                        )
-                )).collect(Collectors.toList());
-
+        return postList;
     }
 
     //Получаем список постов по автору
@@ -181,28 +291,14 @@ public class PostService {
             throw new IllegalArgumentException("Автор обязателен");
         }
 
-        List<Post> postList = postRepository.findByAuthor_Username(author);
+        //Посты выбираются одним запросом сразу в виде DTO
+        List<PostResponse> postList = postRepository.findResponsesByAuthorUsername(author);
 
         if (postList.isEmpty()) {
             throw new IllegalArgumentException("Нет постов у этого автора");
         }
 
-        //Преобразуем в PostResponse в возвращаем список
-        return postList.stream()
-                .map(post -> new PostResponse(
-                        post.getId(),
-                        post.getTitle(),
-                        post.getContent(),
-                        new UserResponse(
-                                post.getAuthor().getId(),
-                                post.getAuthor().getUsername(),
-                                post.getAuthor().getEmail()
-                        ),
-                        new CategoryResponse(
-                                post.getCategory().getId(),
-                                post.getCategory().getName()
-                        )
-                )).collect(Collectors.toList());
+        return postList;
     }
 
     //Получаем посты по категории и автору
@@ -215,49 +311,143 @@ public class PostService {
             throw new IllegalArgumentException("Автор обязателен");
         }
 
-        List<Post> postList = postRepository.findByCategory_NameAndAuthor_Username(categoryName, author);
+        //Посты выбираются одним запросом сразу в виде DTO
+        List<PostResponse> postList = postRepository.findResponsesByCategoryNameAndAuthorUsername(categoryName, author);
 
         if (postList.isEmpty()) {
             throw new IllegalArgumentException("Нет постов по этой категории или автору");
         }
 
-        //Преобразуем в PostResponse в возвращаем список
-        return postList.stream()
-                .map(post -> new PostResponse(
-                        post.getId(),
-                        post.getTitle(),
-                        post.getContent(),
-                        new UserResponse(
-                                post.getAuthor().getId(),
-                                post.getAuthor().getUsername(),
-                                post.getAuthor().getEmail()
-                        ),
-                        new CategoryResponse(
-                                post.getCategory().getId(),
-                                post.getCategory().getName()
-                        )
-                )).collect(Collectors.toList());
+        return postList;
     }
 
-    //Получаем все посты
-    public List<PostResponse> getAllPosts() {
-        // Находим все категории в базе и преобразуем в CategoryResponse
-        return postRepository.findAll().stream()
-                .map(post -> new PostResponse(
-                        post.getId(),
-                        post.getTitle(),
-                        post.getContent(),
-                        new UserResponse(
-                                post.getAuthor().getId(),
-                                post.getAuthor().getUsername(),
-                                post.getAuthor().getEmail()
-                        ),
-                        new CategoryResponse(
-                                post.getCategory().getId(),
-                                post.getCategory().getName()
-                        )
-                ))
-                .toList();
+    /**
+     * Получает страницу постов с необязательными фильтрами по категории и автору.
+     * Используется keyset-пагинация по id: выборка всегда идет по индексу первичного ключа,
+     * поэтому стоимость запроса не растет с номером страницы, а в памяти держится только одна страница.
+     *
+     * @param categoryName название категории или null.
+     * @param author имя автора или null.
+     * @param cursor курсор из предыдущей страницы или null для первой страницы.
+     * @param size размер страницы.
+     * @return страница постов и курсор следующей страницы (null, если страница последняя).
+     */
+    public PostPage getPostsPage(String categoryName, String author, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+
+        long afterId = CursorCodec.decode(cursor);
+        //Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница
+        Limit limit = Limit.of(size + 1);
+
+        List<PostResponse> postList;
+
+        if (categoryName != null && author != null) {
+            postList = postRepository.findResponsesPageByCategoryNameAndAuthorUsername(categoryName, author, afterId, limit);
+        } else if (categoryName != null) {
+            postList = postRepository.findResponsesPageByCategoryName(categoryName, afterId, limit);
+        } else if (author != null) {
+            postList = postRepository.findResponsesPageByAuthorUsername(author, afterId, limit);
+        } else {
+            postList = postRepository.findResponsesPage(afterId, limit);
+        }
+
+        boolean hasNext = postList.size() > size;
+        List<PostResponse> posts = hasNext ? postList.subList(0, size) : postList;
+
+        String nextCursor = hasNext ? CursorCodec.encode(posts.get(posts.size() - 1).getId()) : null;
+
+        return new PostPage(posts, nextCursor);
     }
 
+    //Страница кратких постов (view=summary): те же фильтры и курсор, что и в getPostsPage,
+    //но из БД читается excerpt вместо полного текста
+    public PostSummaryPage getPostSummariesPage(String categoryName, String author, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+
+        long afterId = CursorCodec.decode(cursor);
+        Limit limit = Limit.of(size + 1);
+
+        List<PostSummaryResponse> postList;
+
+        if (categoryName != null && author != null) {
+            postList = postRepository.findSummariesPageByCategoryNameAndAuthorUsername(categoryName, author, afterId, limit);
+        } else if (categoryName != null) {
+            postList = postRepository.findSummariesPageByCategoryName(categoryName, afterId, limit);
+        } else if (author != null) {
+            postList = postRepository.findSummariesPageByAuthorUsername(author, afterId, limit);
+        } else {
+            postList = postRepository.findSummariesPage(afterId, limit);
+        }
+
+        boolean hasNext = postList.size() > size;
+        List<PostSummaryResponse> posts = hasNext ? postList.subList(0, size) : postList;
+
+        String nextCursor = hasNext ? CursorCodec.encode(posts.get(posts.size() - 1).getId()) : null;
+
+        return new PostSummaryPage(posts, nextCursor);
+    }
+
+    /**
+     * Полнотекстовый поиск по заголовку и тексту постов.
+     * Результаты отсортированы по релевантности, поэтому пагинация постраничная (page/size), а не по курсору.
+     *
+     * @param query поисковый запрос (поддерживается синтаксис websearch: "фраза", -исключение, or).
+     * @param page номер страницы, начиная с 0.
+     * @param size размер страницы.
+     * @return найденные посты в порядке убывания релевантности.
+     */
+    public List<PostResponse> searchPosts(String query, int page, int size) {
+        //Сначала по индексу находим id в порядке релевантности, затем одним запросом загружаем сами посты
+        List<Long> ids = searchIds(query, page, size);
+
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        return inOrder(ids, postRepository.findResponsesByIdIn(ids), PostResponse::getId);
+    }
+
+    //Поиск с краткими постами (view=summary)
+    public List<PostSummaryResponse> searchPostSummaries(String query, int page, int size) {
+        List<Long> ids = searchIds(query, page, size);
+
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        return inOrder(ids, postRepository.findSummariesByIdIn(ids), PostSummaryResponse::getId);
+    }
+
+    //id найденных постов в порядке релевантности
+    private List<Long> searchIds(String query, int page, int size) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Поисковый запрос обязателен");
+        }
+
+        if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_SEARCH_PAGE_SIZE);
+        }
+
+        if (page < 0 || (long) (page + 1) * size > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException("Можно просмотреть не более " + MAX_SEARCH_RESULTS + " результатов поиска");
+        }
+
+        return postRepository.searchIds(query, size, page * size);
+    }
+
+    //Посты в порядке переданных id (запрос с "in" порядок не сохраняет)
+    private static <T> List<T> inOrder(List<Long> ids, List<T> posts, Function<T, Long> idOf) {
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+
+        return posts.stream()
+                .sorted(Comparator.comparing(post -> positions.get(idOf.apply(post))))
+                .toList();
+    }
 }
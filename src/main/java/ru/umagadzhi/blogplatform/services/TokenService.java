@@ -0,0 +1,84 @@
+package ru.umagadzhi.blogplatform.services;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import ru.umagadzhi.blogplatform.dto.TokenResponse;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.jwt.JwtAuthenticationCache;
+import ru.umagadzhi.blogplatform.jwt.JwtUtil;
+import ru.umagadzhi.blogplatform.jwt.TokenDenylist;
+import ru.umagadzhi.blogplatform.jwt.TokenVersionRegistry;
+import ru.umagadzhi.blogplatform.repository.UserRepository;
+
+//Выдача, обновление и отзыв пар токенов (короткоживущий access + refresh)
+@Service
+@Timed("blog.service") //Время выполнения каждого метода сервиса
+public class TokenService {
+    private static final String TOKEN_TYPE = "Bearer";
+
+    private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenDenylist tokenDenylist;
+    private final JwtAuthenticationCache authenticationCache;
+
+    public TokenService(JwtUtil jwtUtil, UserRepository userRepository, TokenVersionRegistry tokenVersionRegistry,
+                        TokenDenylist tokenDenylist, JwtAuthenticationCache authenticationCache) {
+        this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.tokenDenylist = tokenDenylist;
+        this.authenticationCache = authenticationCache;
+    }
+
+    public TokenResponse issueTokens(User user) {
+        return new TokenResponse(jwtUtil.generateToken(user), jwtUtil.generateRefreshToken(user),
+                TOKEN_TYPE, jwtUtil.getAccessTokenTtlSeconds());
+    }
+
+    /**
+     * Выдает новую пару токенов по refresh-токену. Refresh-токен одноразовый: использованный токен отзывается.
+     *
+     * @param refreshToken refresh-токен.
+     * @return новая пара токенов или null, если токен невалиден, уже использован или отозван, либо пользователь удален.
+     */
+    public TokenResponse refresh(String refreshToken) {
+        Claims claims = jwtUtil.parseRefreshClaims(refreshToken);
+        if (claims == null || claims.getId() == null || tokenDenylist.isRevoked(claims.getId())) {
+            return null;
+        }
+
+        // Все токены пользователя были отозваны после выпуска этого токена
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        Integer tokenVersion = claims.get(JwtUtil.TOKEN_VERSION_CLAIM, Integer.class);
+        if (userId == null || tokenVersion == null || !tokenVersionRegistry.isCurrent(userId, tokenVersion)) {
+            return null;
+        }
+
+        // Роль пользователя могла измениться — новые токены строим по актуальным данным
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        // Повторное использование токена (в том числе одновременные запросы с ним на разных узлах) не дает второй пары:
+        // отзыв записывается в БД, и успешен только первый
+        if (!tokenDenylist.revoke(claims.getId(), claims.getExpiration())) {
+            return null;
+        }
+
+        return issueTokens(user);
+    }
+
+    // Отзывает один токен (access или refresh). Невалидные и уже истекшие токены игнорируются
+    public void revoke(String token) {
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims == null || claims.getId() == null) {
+            return;
+        }
+
+        tokenDenylist.revoke(claims.getId(), claims.getExpiration());
+        authenticationCache.invalidate(token);
+    }
+}
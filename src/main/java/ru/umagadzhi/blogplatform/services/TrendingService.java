@@ -0,0 +1,169 @@
+package ru.umagadzhi.blogplatform.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.entities.Category;
+import ru.umagadzhi.blogplatform.events.CommentCreatedEvent;
+import ru.umagadzhi.blogplatform.events.LikeChangedEvent;
+import ru.umagadzhi.blogplatform.events.PostCategoryChangedEvent;
+import ru.umagadzhi.blogplatform.events.PostCreatedEvent;
+import ru.umagadzhi.blogplatform.repository.CategoryRepository;
+import ru.umagadzhi.blogplatform.repository.PostRepository;
+import ru.umagadzhi.blogplatform.utils.DecayingScoreboard;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*Популярные посты: рейтинг по лайкам и комментариям, в котором старые события постепенно теряют вес
+(период полураспада blog.trending.half-life-ms).
+
+Рейтинги обновляются в памяти по событиям лайков и комментариев (DecayingScoreboard), без ORDER BY по likes
+и без countByPost для каждого поста. Список лучших постов пересчитывается лениво — при чтении, не чаще
+раза в blog.trending.refresh-ms для каждой категории. Рейтинг собирается только по событиям этого узла
+и после перезапуска начинается заново: за время порядка периода полураспада он снова становится актуальным.*/
+@Slf4j
+@Service
+@Timed("blog.service") //Время выполнения каждого метода сервиса
+public class TrendingService {
+    //Размер списка по умолчанию и максимально допустимый
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    //Ключ общего списка в кэше (id категорий положительные)
+    private static final long ALL_CATEGORIES = 0L;
+    //Рейтинги, затухшие ниже этого значения, удаляются при переносе epoch
+    private static final double MIN_SCORE = 0.01;
+    private static final int STRIPES = 32;
+
+    private final PostRepository postRepository;
+    private final CategoryRepository categoryRepository;
+    private final double likeWeight;
+    private final double commentWeight;
+
+    private final DecayingScoreboard scoreboard;
+    //id поста -> id категории, чтобы не читать пост из БД на каждое событие. Перенос поста на этом узле
+    //обновляет запись сразу (PostCategoryChangedEvent), перенос на другом узле — после истечения записи
+    private final Cache<Long, Long> postCategories;
+    //id категории (или ALL_CATEGORIES) -> id лучших постов, пересчитываются при чтении после истечения записи
+    private final Cache<Long, long[]> topPostIds;
+
+    public TrendingService(PostRepository postRepository, CategoryRepository categoryRepository,
+                           @Value("${blog.trending.half-life-ms:21600000}") long halfLifeMs,
+                           @Value("${blog.trending.like-weight:1}") double likeWeight,
+                           @Value("${blog.trending.comment-weight:2}") double commentWeight,
+                           @Value("${blog.trending.refresh-ms:5000}") long refreshMs,
+                           @Value("${blog.trending.post-category-ttl-ms:600000}") long postCategoryTtlMs) {
+        this.postRepository = postRepository;
+        this.categoryRepository = categoryRepository;
+        this.likeWeight = likeWeight;
+        this.commentWeight = commentWeight;
+        this.scoreboard = new DecayingScoreboard(STRIPES, halfLifeMs, System.currentTimeMillis());
+        this.postCategories = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(postCategoryTtlMs))
+                .build();
+        this.topPostIds = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(refreshMs))
+                .build();
+    }
+
+    /**
+     * Популярные посты, глобально или в категории.
+     *
+     * @param categoryName название категории или null для всех постов.
+     * @param limit сколько постов вернуть.
+     * @return посты по убыванию рейтинга.
+     */
+    public List<PostResponse> getTrending(String categoryName, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Количество постов должно быть от 1 до " + MAX_LIMIT);
+        }
+
+        long categoryId = ALL_CATEGORIES;
+        if (categoryName != null) {
+            categoryId = categoryRepository.findByName(categoryName)
+                    .map(Category::getId)
+                    .orElseThrow(() -> new IllegalArgumentException("Категория " + categoryName + " не найдена"));
+        }
+
+        //Список всегда считаем на MAX_LIMIT постов, чтобы один пересчет обслуживал любой limit
+        long[] ids = topPostIds.get(categoryId, this::computeTop);
+        List<Long> pageIds = Arrays.stream(ids).limit(limit).boxed().toList();
+        if (pageIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, PostResponse> postsById = postRepository.findResponsesByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(PostResponse::getId, Function.identity()));
+
+        //Удаленные посты убираем из рейтинга, в выдачу они не попадают
+        pageIds.stream().filter(id -> !postsById.containsKey(id)).forEach(scoreboard::remove);
+
+        return pageIds.stream()
+                .map(postsById::get)
+                .filter(post -> post != null)
+                .toList();
+    }
+
+    //Категория нового поста известна сразу, без запроса к БД
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCreated(PostCreatedEvent event) {
+        postCategories.put(event.postId(), event.categoryId());
+    }
+
+    //Пост перенесен в другую категорию: его рейтинг учитывается уже в новой категории
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCategoryChanged(PostCategoryChangedEvent event) {
+        postCategories.put(event.postId(), event.categoryId());
+        scoreboard.moveToGroup(event.postId(), event.categoryId());
+    }
+
+    //Лайк добавлен или снят
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        record(event.postId(), likeWeight * event.delta());
+    }
+
+    //Комментарий добавлен (после коммита транзакции)
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        record(event.postId(), commentWeight);
+    }
+
+    //Переносим epoch рейтинга, чтобы веса не переполнились, и удаляем затухшие рейтинги
+    @Scheduled(fixedDelayString = "${blog.trending.rebase-interval-ms:3600000}")
+    public void rebase() {
+        int size = scoreboard.rebase(System.currentTimeMillis(), MIN_SCORE);
+        log.debug("Рейтинг популярных постов: {} постов", size);
+    }
+
+    private void record(Long postId, double weight) {
+        Long categoryId = postCategories.get(postId, id -> postRepository.findCategoryIdById(id).orElse(null));
+        if (categoryId == null) {
+            return; //Пост уже удален
+        }
+        scoreboard.add(postId, categoryId, weight, System.currentTimeMillis());
+    }
+
+    private long[] computeTop(Long categoryId) {
+        Long group = categoryId == ALL_CATEGORIES ? null : categoryId;
+        return scoreboard.top(MAX_LIMIT, group, System.currentTimeMillis()).stream()
+                .mapToLong(DecayingScoreboard.Score::id)
+                .toArray();
+    }
+}
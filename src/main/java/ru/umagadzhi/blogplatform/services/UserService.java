@@ -1,31 +1,56 @@
 package ru.umagadzhi.blogplatform.services;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.jwt.JwtAuthenticationCache;
+import ru.umagadzhi.blogplatform.jwt.TokenVersionRegistry;
 import ru.umagadzhi.blogplatform.repository.UserRepository;
 
 import java.util.Optional;
 
 @Service
-public class UserService implements UserDetailsService {
+@Timed("blog.service") //Время выполнения каждого метода сервиса
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository repository;
     private final PasswordEncoder passwordEncoder;
+    private final JwtAuthenticationCache authenticationCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     @Autowired
-    public UserService(UserRepository repository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository repository, PasswordEncoder passwordEncoder,
+                       JwtAuthenticationCache authenticationCache, TokenVersionRegistry tokenVersionRegistry) {
         this.repository = repository;
         this.passwordEncoder = passwordEncoder;
+        this.authenticationCache = authenticationCache;
+        this.tokenVersionRegistry = tokenVersionRegistry;
     }
 
     public User registerUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword())); // кодируем пароль
-        return repository.save(user);
+        User savedUser = repository.save(user);
+        // Данные пользователя изменились — закэшированные по его токенам данные больше не актуальны
+        authenticationCache.invalidateUser(savedUser.getUsername());
+        return savedUser;
+    }
+
+    // Отзывает все ранее выпущенные токены пользователя, увеличивая версию токенов
+    public void revokeTokens(String username) {
+        User user = repository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        repository.save(user);
+
+        tokenVersionRegistry.update(user.getId(), user.getTokenVersion());
+        authenticationCache.invalidateUser(username);
     }
 
     public Optional<User> findByUsername(String text) {
@@ -47,4 +72,20 @@ public class UserService implements UserDetailsService {
                 user.getAuthorities()
         );
     }
+
+    /*Вызывается DaoAuthenticationProvider после успешного входа, если хеш пароля устарел
+    (другой алгоритм, меньший work factor или старый хеш без префикса алгоритма).
+    newPassword — уже пересчитанный хеш.*/
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = repository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        user.setPassword(newPassword);
+        repository.save(user);
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
 }
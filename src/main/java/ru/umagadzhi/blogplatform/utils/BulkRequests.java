@@ -0,0 +1,35 @@
+package ru.umagadzhi.blogplatform.utils;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//Общие проверки пакетных (bulk) запросов
+public final class BulkRequests {
+    //Максимальное число элементов в одном пакетном запросе
+    public static final int MAX_SIZE = 1000;
+
+    private BulkRequests() {
+    }
+
+    public static void checkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Список элементов обязателен");
+        }
+
+        if (items.size() > MAX_SIZE) {
+            throw new IllegalArgumentException("За один запрос можно передать не более " + MAX_SIZE + " элементов");
+        }
+    }
+
+    //Уникальные непустые id, на которые ссылаются элементы запроса (для загрузки одним запросом на тип)
+    public static <T> Set<Long> referencedIds(List<T> items, Function<T, Long> idGetter) {
+        return items.stream()
+                .filter(Objects::nonNull)
+                .map(idGetter)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,50 @@
+package ru.umagadzhi.blogplatform.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//Кодирование и разбор непрозрачных курсоров для keyset-пагинации.
+//Клиент получает курсор как строку и передает его обратно без изменений,
+//поэтому формат курсора можно менять без изменения API (например, перейти на сортировку по дате)
+public final class CursorCodec {
+    private static final String ID_PREFIX = "id:";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Кодирует id последней отданной записи в курсор.
+     *
+     * @param id идентификатор последней записи на странице.
+     * @return непрозрачный курсор для запроса следующей страницы.
+     */
+    public static String encode(long id) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((ID_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор, полученный от клиента.
+     *
+     * @param cursor курсор или null для первой страницы.
+     * @return id, после которого нужно продолжить выборку (0 для первой страницы).
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            if (!raw.startsWith(ID_PREFIX)) {
+                throw new IllegalArgumentException("Некорректный курсор");
+            }
+
+            return Long.parseLong(raw.substring(ID_PREFIX.length()));
+        } catch (IllegalArgumentException e) { //NumberFormatException тоже наследник IllegalArgumentException
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package ru.umagadzhi.blogplatform.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/*Рейтинг с экспоненциальным затуханием: вклад каждого события уменьшается вдвое за halfLifeMillis.
+
+Чтобы не пересчитывать все рейтинги с течением времени, вес события при добавлении умножается на
+exp(lambda * (t - epoch)): более поздние события сразу весят больше, а порядок рейтингов в любой момент
+совпадает с порядком затухших значений. Настоящее (затухшее) значение вычисляется только при чтении.
+Чтобы множитель не переполнил double, rebase периодически переносит epoch на текущий момент
+и заодно удаляет рейтинги, которые затухли почти до нуля.
+
+Рейтинги разбиты на stripes частей по id, у каждой части своя блокировка: конкурируют только события
+для id из одной части. Каждый id относится к группе (например, категории поста) для выборки лучших в группе.*/
+public class DecayingScoreboard {
+
+    //id и текущее (затухшее) значение рейтинга
+    public record Score(long id, double value) {}
+
+    private static final class Entry {
+        long group;
+        double raw;
+    }
+
+    private final Map<Long, Entry>[] stripes;
+    private final double lambda;
+    //Момент, относительно которого хранятся значения. Меняется только под блокировками всех частей
+    private long epochMillis;
+
+    @SuppressWarnings("unchecked")
+    public DecayingScoreboard(int stripes, long halfLifeMillis, long nowMillis) {
+        if (stripes < 1 || halfLifeMillis < 1) {
+            throw new IllegalArgumentException("Число частей и период полураспада должны быть положительными");
+        }
+        this.stripes = new Map[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new HashMap<>();
+        }
+        this.lambda = Math.log(2) / halfLifeMillis;
+        this.epochMillis = nowMillis;
+    }
+
+    /**
+     * Добавляет событие к рейтингу.
+     *
+     * @param id id (например, поста).
+     * @param group группа, к которой относится id.
+     * @param weight вес события (может быть отрицательным, например при снятии лайка).
+     * @param nowMillis время события.
+     */
+    public void add(long id, long group, double weight, long nowMillis) {
+        Map<Long, Entry> stripe = stripeOf(id);
+        synchronized (stripe) {
+            Entry entry = stripe.computeIfAbsent(id, key -> new Entry());
+            entry.group = group; //Пост могли перенести в другую категорию
+            entry.raw += weight * Math.exp(lambda * (nowMillis - epochMillis));
+        }
+    }
+
+    /**
+     * Лучшие рейтинги на момент nowMillis.
+     *
+     * @param k сколько рейтингов вернуть.
+     * @param group группа или null для всех id.
+     * @param nowMillis момент, на который вычисляются затухшие значения.
+     * @return не больше k рейтингов по убыванию (только положительные).
+     */
+    public List<Score> top(int k, Long group, long nowMillis) {
+        //Лучшие k в каждой части отбираются под ее блокировкой, общий результат — из лучших частей
+        PriorityQueue<Score> best = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a.value(), b.value()));
+        for (Map<Long, Entry> stripe : stripes) {
+            synchronized (stripe) {
+                double decay = Math.exp(-lambda * (nowMillis - epochMillis));
+                for (Map.Entry<Long, Entry> e : stripe.entrySet()) {
+                    Entry entry = e.getValue();
+                    if (entry.raw <= 0 || (group != null && entry.group != group)) {
+                        continue;
+                    }
+                    if (best.size() < k) {
+                        best.add(new Score(e.getKey(), entry.raw * decay));
+                    } else if (entry.raw * decay > best.peek().value()) {
+                        best.poll();
+                        best.add(new Score(e.getKey(), entry.raw * decay));
+                    }
+                }
+            }
+        }
+
+        List<Score> result = new ArrayList<>(best);
+        result.sort((a, b) -> Double.compare(b.value(), a.value()));
+        return result;
+    }
+
+    //Переносит рейтинг в другую группу (например, пост перенесен в другую категорию). Отсутствующий id не добавляется
+    public void moveToGroup(long id, long group) {
+        Map<Long, Entry> stripe = stripeOf(id);
+        synchronized (stripe) {
+            Entry entry = stripe.get(id);
+            if (entry != null) {
+                entry.group = group;
+            }
+        }
+    }
+
+    //Удаляет рейтинг (например, пост удален)
+    public void remove(long id) {
+        Map<Long, Entry> stripe = stripeOf(id);
+        synchronized (stripe) {
+            stripe.remove(id);
+        }
+    }
+
+    /**
+     * Переносит epoch на nowMillis и удаляет рейтинги, затухшие ниже minValue.
+     *
+     * @return сколько id осталось в рейтинге.
+     */
+    public int rebase(long nowMillis, double minValue) {
+        lockAll(0, nowMillis, minValue);
+        int size = 0;
+        for (Map<Long, Entry> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    //Блокируем части по порядку (рекурсивно), чтобы add не видел наполовину перенесенный epoch
+    private void lockAll(int index, long nowMillis, double minValue) {
+        if (index < stripes.length) {
+            synchronized (stripes[index]) {
+                lockAll(index + 1, nowMillis, minValue);
+            }
+            return;
+        }
+
+        double decay = Math.exp(-lambda * (nowMillis - epochMillis));
+        for (Map<Long, Entry> stripe : stripes) {
+            Iterator<Entry> iterator = stripe.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                entry.raw *= decay;
+                if (entry.raw < minValue) {
+                    iterator.remove();
+                }
+            }
+        }
+        epochMillis = nowMillis;
+    }
+
+    private Map<Long, Entry> stripeOf(long id) {
+        return stripes[Math.floorMod(Long.hashCode(id) * 0x9E3779B9, stripes.length)];
+    }
+}
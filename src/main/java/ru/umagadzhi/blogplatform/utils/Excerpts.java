@@ -0,0 +1,41 @@
+package ru.umagadzhi.blogplatform.utils;
+
+//Краткое содержание поста для списков (view=summary): начало текста с нормализованными пробелами,
+//обрезанное по границе слова. Вычисляется при записи поста и хранится рядом с ним
+public final class Excerpts {
+    //Максимальная длина без многоточия
+    public static final int MAX_LENGTH = 160;
+    private static final String ELLIPSIS = "…";
+
+    private Excerpts() {
+    }
+
+    /**
+     * Краткое содержание текста.
+     *
+     * @param content полный текст поста.
+     * @return текст целиком, если он не длиннее MAX_LENGTH, иначе начало текста с многоточием.
+     */
+    public static String of(String content) {
+        if (content == null) {
+            return null;
+        }
+
+        String text = content.strip().replaceAll("\\s+", " ");
+        if (text.length() <= MAX_LENGTH) {
+            return text;
+        }
+
+        //Обрезаем по последнему пробелу, если он не слишком далеко от конца (иначе слово очень длинное)
+        int end = text.lastIndexOf(' ', MAX_LENGTH);
+        if (end < MAX_LENGTH * 3 / 4) {
+            end = MAX_LENGTH;
+            //Не разрезаем суррогатную пару
+            if (Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+        }
+
+        return text.substring(0, end).stripTrailing() + ELLIPSIS;
+    }
+}
@@ -0,0 +1,72 @@
+package ru.umagadzhi.blogplatform.utils;
+
+import java.util.Arrays;
+
+/*Кольцевой буфер фиксированной емкости для значений long без упаковки в Long.
+При переполнении новое значение вытесняет самое старое. Хранит capacity * 8 байт плюс заголовок массива,
+поэтому подходит для большого числа небольших списков id (ленты пользователей). Потокобезопасен.*/
+public class LongRingBuffer {
+    private final long[] values;
+    //Позиция, в которую будет записано следующее значение
+    private int next;
+    private int size;
+
+    public LongRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Емкость буфера должна быть положительной");
+        }
+        this.values = new long[capacity];
+    }
+
+    //Буфер, заполненный значениями в порядке добавления (последнее — самое новое). Лишние старые значения отбрасываются
+    public static LongRingBuffer of(int capacity, long[] oldestFirst) {
+        LongRingBuffer buffer = new LongRingBuffer(capacity);
+        for (int i = Math.max(0, oldestFirst.length - capacity); i < oldestFirst.length; i++) {
+            buffer.add(oldestFirst[i]);
+        }
+        return buffer;
+    }
+
+    public synchronized void add(long value) {
+        values[next] = value;
+        next = (next + 1) % values.length;
+        if (size < values.length) {
+            size++;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Значения меньше bound в порядке убывания.
+     *
+     * @param bound верхняя граница (не включительно).
+     * @param limit максимальное количество значений.
+     * @return не больше limit наибольших значений буфера, меньших bound.
+     */
+    public long[] valuesBelow(long bound, int limit) {
+        long[] copy;
+        synchronized (this) {
+            copy = new long[size];
+            for (int i = 0; i < size; i++) {
+                copy[i] = values[Math.floorMod(next - 1 - i, values.length)];
+            }
+        }
+
+        //Значения добавляются почти по возрастанию, но порядок не гарантирован (асинхронная рассылка)
+        Arrays.sort(copy);
+        int end = copy.length;
+        while (end > 0 && copy[end - 1] >= bound) {
+            end--;
+        }
+
+        int count = Math.min(limit, end);
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = copy[end - 1 - i];
+        }
+        return result;
+    }
+}
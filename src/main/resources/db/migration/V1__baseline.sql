@@ -0,0 +1,61 @@
+-- Исходная схема: то, что раньше создавали spring.jpa.hibernate.ddl-auto=update и schema-postgresql.sql.
+-- Все команды идемпотентны: на пустой БД миграция создает схему с нуля, а на базе, созданной до Flyway
+-- (spring.flyway.baseline-on-migrate, базовая версия 0), только добавляет недостающее.
+
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists categories_seq start with 1 increment by 50;
+create sequence if not exists posts_seq start with 1 increment by 50;
+create sequence if not exists comments_seq start with 1 increment by 50;
+create sequence if not exists likes_seq start with 1 increment by 50;
+
+create table if not exists users (
+    id       bigint       not null primary key,
+    username varchar(255),
+    email    varchar(255),
+    password varchar(255),
+    role     varchar(255) check (role in ('AUTHOR', 'ADMIN', 'READER'))
+);
+alter table users add column if not exists token_version integer default 0 not null;
+
+create table if not exists categories (
+    id   bigint not null primary key,
+    name varchar(255)
+);
+
+create table if not exists posts (
+    id          bigint not null primary key,
+    title       varchar(255),
+    content     varchar(255),
+    author_id   bigint constraint fk_posts_author references users,
+    category_id bigint constraint fk_posts_category references categories
+);
+alter table posts add column if not exists like_count bigint default 0 not null;
+
+create table if not exists comments (
+    id        bigint not null primary key,
+    content   varchar(255),
+    post_id   bigint constraint fk_comments_post references posts,
+    author_id bigint constraint fk_comments_author references users
+);
+
+create table if not exists likes (
+    id      bigint not null primary key,
+    post_id bigint constraint fk_likes_post references posts,
+    user_id bigint constraint fk_likes_user references users,
+    constraint uk_likes_post_user unique (post_id, user_id)
+);
+
+create table if not exists revoked_tokens (
+    id         varchar(64)                 not null primary key,
+    expires_at timestamp(6) with time zone not null
+);
+
+-- Полнотекстовый поиск по постам: tsvector хранится в строке поста и пересчитывается самой БД
+-- при вставке и обновлении, заголовок весит больше текста
+alter table posts add column if not exists search_vector tsvector
+    generated always as (
+        setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('russian', coalesce(content, '')), 'B')
+    ) stored;
+
+create index if not exists idx_posts_search_vector on posts using gin (search_vector);
@@ -0,0 +1,43 @@
+-- Индексы под все пути запросов репозиториев (проверяются тестом QueryPlanTest через EXPLAIN).
+-- if not exists: на базах, созданных до Flyway, часть объектов могла уже существовать.
+
+-- Поиск пользователя при входе и на каждый запрос с токеном, проверки при регистрации
+create unique index if not exists uk_users_username on users (username);
+create unique index if not exists uk_users_email on users (email);
+-- Пользователи с отозванными токенами (TokenVersionRegistry), частичный индекс остается маленьким
+create index if not exists idx_users_revoked_token_version on users (id, token_version) where token_version > 0;
+
+-- Фильтр постов по названию категории
+create index if not exists idx_categories_name on categories (name);
+
+-- Keyset-пагинация постов автора и категории: фильтр по внешнему ключу и порядок по id
+create index if not exists idx_posts_author_id on posts (author_id, id);
+create index if not exists idx_posts_category_id on posts (category_id, id);
+
+-- Страницы комментариев поста и первые комментарии для ленты (LATERAL), а также каскадное удаление поста
+create index if not exists idx_comments_post_id on comments (post_id, id);
+-- Удаление пользователя (внешний ключ comments.author_id)
+create index if not exists idx_comments_author_id on comments (author_id);
+
+-- Уникальный (post_id, user_id) нужен для INSERT ... ON CONFLICT и покрывает выборки по post_id.
+-- На базах, созданных до Flyway, он мог отсутствовать
+do $$
+begin
+    if not exists (select 1 from pg_constraint where conname = 'uk_likes_post_user') then
+        alter table likes add constraint uk_likes_post_user unique (post_id, user_id);
+    end if;
+end
+$$;
+-- Лайки пользователя (удаление пользователя, внешний ключ likes.user_id)
+create index if not exists idx_likes_user_id on likes (user_id);
+
+-- Перечитывание и очистка отозванных токенов по сроку действия
+create index if not exists idx_revoked_tokens_expires_at on revoked_tokens (expires_at);
+
+-- Базы, созданные до Flyway, получили последовательности от Hibernate: сдвигаем их за существующие id.
+-- Значение только растет, поэтому на новой базе это ничего не меняет
+select setval('users_seq', greatest((select last_value from users_seq), (select coalesce(max(id), 0) from users) + 50));
+select setval('categories_seq', greatest((select last_value from categories_seq), (select coalesce(max(id), 0) from categories) + 50));
+select setval('posts_seq', greatest((select last_value from posts_seq), (select coalesce(max(id), 0) from posts) + 50));
+select setval('comments_seq', greatest((select last_value from comments_seq), (select coalesce(max(id), 0) from comments) + 50));
+select setval('likes_seq', greatest((select last_value from likes_seq), (select coalesce(max(id), 0) from likes) + 50));
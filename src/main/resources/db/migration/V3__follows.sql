@@ -0,0 +1,17 @@
+-- Подписки для персональной ленты: на авторов и на категории.
+-- Первичный ключ (подписчик, источник) делает подписку идемпотентной и отдает подписки пользователя по индексу,
+-- обратный индекс (источник, подписчик) — подписчиков автора/категории при рассылке нового поста
+
+create table user_follows (
+    follower_id bigint not null constraint fk_user_follows_follower references users on delete cascade,
+    author_id   bigint not null constraint fk_user_follows_author references users on delete cascade,
+    primary key (follower_id, author_id)
+);
+create index idx_user_follows_author_id on user_follows (author_id, follower_id);
+
+create table category_follows (
+    follower_id bigint not null constraint fk_category_follows_follower references users on delete cascade,
+    category_id bigint not null constraint fk_category_follows_category references categories on delete cascade,
+    primary key (follower_id, category_id)
+);
+create index idx_category_follows_category_id on category_follows (category_id, follower_id);
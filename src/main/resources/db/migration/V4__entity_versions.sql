@@ -0,0 +1,15 @@
+-- Версии и время последнего изменения постов, комментариев и категорий (@Version и @UpdateTimestamp).
+-- Из них строятся ETag и Last-Modified ответов, по версии проверяется If-Match при обновлении.
+-- Существующие строки получают версию 0 и время применения миграции
+
+alter table posts
+    add column version    bigint                      default 0     not null,
+    add column updated_at timestamp(6) with time zone default now() not null;
+
+alter table comments
+    add column version    bigint                      default 0     not null,
+    add column updated_at timestamp(6) with time zone default now() not null;
+
+alter table categories
+    add column version    bigint                      default 0     not null,
+    add column updated_at timestamp(6) with time zone default now() not null;
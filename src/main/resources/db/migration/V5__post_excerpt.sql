@@ -0,0 +1,10 @@
+-- Краткое содержание поста для списков (view=summary): списки не читают полный текст из БД.
+-- Новые и измененные посты получают excerpt в PostService (Excerpts.of, обрезка по границе слова),
+-- существующие заполняются здесь обрезкой до 160 символов
+
+alter table posts add column excerpt varchar(255);
+
+update posts p
+set excerpt = case when char_length(t.text) <= 160 then t.text else rtrim(left(t.text, 160)) || '…' end
+from (select id, regexp_replace(btrim(content), '\s+', ' ', 'g') as text from posts) t
+where p.id = t.id;
@@ -0,0 +1,15 @@
+-- Текст поста без ограничения длины (раньше varchar(255): длинные посты не сохранялись).
+-- Тип колонки, от которой зависит генерируемый search_vector, менять нельзя, поэтому search_vector
+-- и его индекс пересоздаются с тем же выражением, что и в V1
+
+alter table posts drop column search_vector;
+
+alter table posts alter column content type text;
+
+alter table posts add column search_vector tsvector
+    generated always as (
+        setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('russian', coalesce(content, '')), 'B')
+    ) stored;
+
+create index idx_posts_search_vector on posts using gin (search_vector);
@@ -0,0 +1,161 @@
+package ru.umagadzhi.blogplatform.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.umagadzhi.blogplatform.dto.CategoryResponse;
+import ru.umagadzhi.blogplatform.dto.CommentRequest;
+import ru.umagadzhi.blogplatform.dto.CommentResponse;
+import ru.umagadzhi.blogplatform.dto.PostRequest;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.dto.ResourceVersion;
+import ru.umagadzhi.blogplatform.dto.UserResponse;
+import ru.umagadzhi.blogplatform.handler.GlobalExceptionHandler;
+import ru.umagadzhi.blogplatform.services.CategoryService;
+import ru.umagadzhi.blogplatform.services.CommentService;
+import ru.umagadzhi.blogplatform.services.PostService;
+import ru.umagadzhi.blogplatform.services.TrendingService;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Условные запросы: 304 по If-None-Match без чтения ресурса, 412 по устаревшему If-Match без обновления
+//и ETag новой версии в ответе на успешное обновление
+class ConditionalRequestsTest {
+    private static final Instant UPDATED_AT = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final PostService postService = mock(PostService.class);
+    private final CommentService commentService = mock(CommentService.class);
+    private final CategoryService categoryService = mock(CategoryService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new PostController(postService, mock(TrendingService.class), objectMapper),
+                        new CommentController(commentService), new CategoryController(categoryService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void getPostReturnsNotModifiedForCurrentETag() throws Exception {
+        when(postService.getPostVersion(1L)).thenReturn(Optional.of(postVersion(3)));
+
+        mockMvc.perform(get("/api/posts/1").header(HttpHeaders.IF_NONE_MATCH, "\"3.1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3.1\""));
+
+        verify(postService, never()).getPostById(anyLong(), any());
+    }
+
+    @Test
+    void updatePostWithStaleIfMatchFailsPrecondition() throws Exception {
+        when(postService.getPostVersion(1L)).thenReturn(Optional.of(postVersion(3)));
+
+        mockMvc.perform(put("/api/posts")
+                        .header(HttpHeaders.IF_MATCH, "\"2.1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(postRequest())))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(postService, never()).updatePost(any(), any());
+    }
+
+    @Test
+    void updatePostReturnsETagOfNewVersion() throws Exception {
+        //До обновления версия 3, после — 4
+        when(postService.getPostVersion(1L)).thenReturn(Optional.of(postVersion(3)), Optional.of(postVersion(4)));
+        when(postService.updatePost(any(), any())).thenReturn(new PostResponse(1L, "Заголовок", "Текст",
+                new UserResponse(1L, "alice", "alice@example.com"), new CategoryResponse(1L, "java")));
+
+        mockMvc.perform(put("/api/posts")
+                        .header(HttpHeaders.IF_MATCH, "\"3.1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(postRequest())))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4.1\""));
+
+        verify(postService).updatePost(any(), any());
+    }
+
+    @Test
+    void getCommentReturnsNotModifiedForCurrentETag() throws Exception {
+        when(commentService.getCommentVersion(5L)).thenReturn(Optional.of(commentVersion(2)));
+
+        mockMvc.perform(get("/api/comments/5").header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isNotModified());
+
+        verify(commentService, never()).getCommentByID(anyLong());
+    }
+
+    @Test
+    void updateCommentWithStaleIfMatchFailsPrecondition() throws Exception {
+        when(commentService.getCommentVersion(5L)).thenReturn(Optional.of(commentVersion(2)));
+
+        mockMvc.perform(put("/api/comments")
+                        .header(HttpHeaders.IF_MATCH, "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(commentRequest())))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(commentService, never()).updateComment(any(), any());
+    }
+
+    @Test
+    void updateCommentReturnsETagOfNewVersion() throws Exception {
+        when(commentService.getCommentVersion(5L)).thenReturn(Optional.of(commentVersion(2)), Optional.of(commentVersion(3)));
+        when(commentService.updateComment(any(), any()))
+                .thenReturn(new CommentResponse(5L, "Комментарий", 1L, "alice", "alice@example.com"));
+
+        mockMvc.perform(put("/api/comments")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(commentRequest())))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    void getCategoriesReturnsNotModifiedForCurrentETag() throws Exception {
+        when(categoryService.getCategoriesVersion()).thenReturn(new ResourceVersion(7, ResourceVersion.eTag(2, 9, 7), null));
+
+        mockMvc.perform(get("/api/categories").header(HttpHeaders.IF_NONE_MATCH, "\"2.9.7\""))
+                .andExpect(status().isNotModified());
+
+        verify(categoryService, never()).getAllCategories(any());
+    }
+
+    private static ResourceVersion postVersion(long version) {
+        return new ResourceVersion(version, ResourceVersion.eTag(version, 1), UPDATED_AT);
+    }
+
+    private static ResourceVersion commentVersion(long version) {
+        return new ResourceVersion(version, ResourceVersion.eTag(version), UPDATED_AT);
+    }
+
+    private static PostRequest postRequest() {
+        return new PostRequest(1L, "Заголовок", "Текст", 1L, 1L);
+    }
+
+    private static CommentRequest commentRequest() {
+        return new CommentRequest(5L, "Комментарий", 1L, 1L);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.umagadzhi.blogplatform.jwt;
+
+import org.junit.jupiter.api.Test;
+import ru.umagadzhi.blogplatform.entities.RevokedToken;
+import ru.umagadzhi.blogplatform.repository.RevokedTokenRepository;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//Отзыв не теряется при перечитывании списка из БД, в том числе если он сделан во время перечитывания
+class TokenDenylistTest {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private final TokenDenylist denylist = new TokenDenylist(repository, 1000);
+    private final Date expiration = new Date(System.currentTimeMillis() + 3_600_000);
+
+    @Test
+    void refreshLoadsRevocationsFromOtherNodes() {
+        when(repository.findByExpiresAtAfter(any()))
+                .thenReturn(List.of(new RevokedToken("other-node", expiration.toInstant())));
+
+        denylist.refresh();
+
+        assertThat(denylist.isRevoked("other-node")).isTrue();
+        assertThat(denylist.isRevoked("not-revoked")).isFalse();
+    }
+
+    @Test
+    void revokeDuringRefreshIsKept() {
+        when(repository.insertIfAbsent(anyString(), any())).thenReturn(1);
+        //Токен отзывают, пока refresh читает таблицу: в прочитанных строках его еще нет
+        when(repository.findByExpiresAtAfter(any())).thenAnswer(invocation -> {
+            denylist.revoke("during-refresh", expiration);
+            return List.of(new RevokedToken("other-node", expiration.toInstant()));
+        });
+
+        denylist.refresh();
+
+        assertThat(denylist.isRevoked("during-refresh")).isTrue();
+        assertThat(denylist.isRevoked("other-node")).isTrue();
+    }
+
+    @Test
+    void revocationsRacingWithRefreshesAreNeverLost() throws Exception {
+        when(repository.insertIfAbsent(anyString(), any())).thenReturn(1);
+        int tokens = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        try {
+            //Таблица пуста: отзывы переживают замену состояния только за счет переноса локальных отзывов
+            Future<?> refresher = executor.submit(() -> {
+                while (running.get()) {
+                    denylist.refresh();
+                }
+            });
+            Future<?> revoker = executor.submit(() -> {
+                for (int i = 0; i < tokens; i++) {
+                    denylist.revoke("token-" + i, expiration);
+                }
+            });
+
+            revoker.get(1, TimeUnit.MINUTES);
+            running.set(false);
+            refresher.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < tokens; i++) {
+            assertThat(denylist.isRevoked("token-" + i)).as("token-%d", i).isTrue();
+        }
+    }
+
+    @Test
+    void expiredRevocationsAreDroppedOnRefresh() {
+        when(repository.insertIfAbsent(anyString(), any())).thenReturn(1);
+        denylist.revoke("expired", Date.from(Instant.now().minusSeconds(1)));
+        denylist.revoke("valid", expiration);
+
+        denylist.refresh();
+
+        assertThat(denylist.isRevoked("expired")).isFalse();
+        assertThat(denylist.isRevoked("valid")).isTrue();
+    }
+}
@@ -0,0 +1,41 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.umagadzhi.blogplatform.handler.GlobalExceptionHandler;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/*Лайк одновременно ставят и снимают: ни вставка, ни повторное чтение не находят строку.
+На PostgreSQL это окно не воспроизвести надежно, поэтому JdbcTemplate здесь заглушка,
+которая на любой запрос возвращает пустой результат.*/
+class LikeRepositoryImplConflictTest {
+
+    @Test
+    void likeRemovedDuringEveryAttemptGivesConflictWithRetryAfter() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        LikeIdAllocator likeIdAllocator = mock(LikeIdAllocator.class);
+        LikeRepositoryImpl repository = new LikeRepositoryImpl(jdbcTemplate, likeIdAllocator);
+
+        ConcurrencyFailureException exception = catchThrowableOfType(ConcurrencyFailureException.class,
+                () -> repository.insertLike(1L, 2L));
+
+        //Две попытки вставки, после которых запрос отклоняется как временный конфликт
+        assertThat(exception).isNotNull();
+        verify(likeIdAllocator, times(2)).nextId();
+
+        ResponseEntity<Map<String, String>> response = new GlobalExceptionHandler().handleConcurrencyFailure(exception);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+}
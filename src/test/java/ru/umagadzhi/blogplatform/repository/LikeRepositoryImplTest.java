@@ -0,0 +1,157 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.umagadzhi.blogplatform.entities.Category;
+import ru.umagadzhi.blogplatform.entities.Post;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.enums.Role;
+import ru.umagadzhi.blogplatform.repository.LikeRepositoryCustom.LikeRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*Постановка и снятие лайка одним запросом на PostgreSQL в Docker (ON CONFLICT и RETURNING на H2 не проверить).
+Тест идет без общей транзакции: каждый запрос фиксируется сразу, как в приложении,
+иначе параллельные вставки не увидели бы друг друга.*/
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+//LikeIdAllocator нужен LikeRepositoryImpl, а срез @DataJpaTest не сканирует обычные компоненты
+@Import(LikeIdAllocator.class)
+class LikeRepositoryImplTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private LikeRepository likeRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("password");
+        user.setRole(Role.AUTHOR);
+        user = userRepository.save(user);
+
+        Category category = new Category();
+        category.setName("java");
+        category = categoryRepository.save(category);
+
+        post = new Post();
+        post.setTitle("Лайки");
+        post.setContent("Один пользователь — один лайк");
+        post.setAuthor(user);
+        post.setCategory(category);
+        post = postRepository.save(post);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from likes");
+        jdbcTemplate.update("delete from posts");
+        jdbcTemplate.update("delete from categories");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    void parallelDuplicateInsertsCreateOneLike() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<LikeRow> rows = new ArrayList<>();
+
+        try {
+            Callable<LikeRow> insert = () -> {
+                start.await();
+                return likeRepository.insertLike(post.getId(), user.getId());
+            };
+            List<Future<LikeRow>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(insert));
+            }
+            start.countDown();
+            for (Future<LikeRow> future : futures) {
+                rows.add(future.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //Лайк создал ровно один запрос, остальные получили тот же лайк как уже существующий
+        assertThat(rows).filteredOn(LikeRow::created).hasSize(1);
+        assertThat(rows).extracting(LikeRow::id).containsOnly(rows.get(0).id());
+        assertThat(rows).extracting(LikeRow::username).containsOnly("alice");
+        assertThat(countLikes()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedInsertReturnsExistingLike() {
+        LikeRow created = likeRepository.insertLike(post.getId(), user.getId());
+        LikeRow repeated = likeRepository.insertLike(post.getId(), user.getId());
+
+        assertThat(created.created()).isTrue();
+        assertThat(repeated.created()).isFalse();
+        assertThat(repeated.id()).isEqualTo(created.id());
+        assertThat(countLikes()).isEqualTo(1);
+    }
+
+    @Test
+    void insertForMissingPostOrUserThrowsEntityNotFound() {
+        assertThatThrownBy(() -> likeRepository.insertLike(post.getId() + 1000, user.getId()))
+                .isInstanceOf(EntityNotFoundException.class);
+        assertThatThrownBy(() -> likeRepository.insertLike(post.getId(), user.getId() + 1000))
+                .isInstanceOf(EntityNotFoundException.class);
+        assertThat(countLikes()).isZero();
+    }
+
+    @Test
+    void deleteRemovesLikeOnlyOnce() {
+        likeRepository.insertLike(post.getId(), user.getId());
+
+        assertThat(likeRepository.deleteLike(post.getId(), user.getId())).isTrue();
+        assertThat(likeRepository.deleteLike(post.getId(), user.getId())).isFalse();
+        assertThat(countLikes()).isZero();
+    }
+
+    private long countLikes() {
+        return jdbcTemplate.queryForObject("select count(*) from likes where post_id = ?", Long.class, post.getId());
+    }
+}
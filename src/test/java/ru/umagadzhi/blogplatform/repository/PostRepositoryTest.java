@@ -0,0 +1,162 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+import ru.umagadzhi.blogplatform.dto.PostSummaryResponse;
+import ru.umagadzhi.blogplatform.entities.Category;
+import ru.umagadzhi.blogplatform.entities.Post;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.enums.Role;
+import ru.umagadzhi.blogplatform.utils.Excerpts;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Проверяем, что выборки постов выполняются одним SQL-запросом (без N+1 на автора и категорию)
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        //Миграции написаны для PostgreSQL, на H2 схему создает Hibernate
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+//LikeIdAllocator нужен LikeRepositoryImpl, а срез @DataJpaTest не сканирует обычные компоненты
+@Import(LikeIdAllocator.class)
+class PostRepositoryTest {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User alice = persistUser("alice");
+        User bob = persistUser("bob");
+        Category java = persistCategory("java");
+        Category spring = persistCategory("spring");
+
+        persistPost("Первый", alice, java);
+        persistPost("Второй", bob, java);
+        persistPost("Третий", alice, spring);
+        persistPost("Четвертый", bob, spring);
+
+        //Очищаем контекст, чтобы сущности не брались из кэша первого уровня
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findResponsesByCategoryNameUsesSingleStatement() {
+        List<PostResponse> posts = postRepository.findResponsesByCategoryName("java");
+
+        assertThat(posts).hasSize(2);
+        assertThat(posts).allSatisfy(post -> assertThat(post.getCategory().getName()).isEqualTo("java"));
+        assertThat(posts).extracting(post -> post.getAuthor().getUsername()).containsExactly("alice", "bob");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findResponsesByAuthorUsernameUsesSingleStatement() {
+        List<PostResponse> posts = postRepository.findResponsesByAuthorUsername("alice");
+
+        assertThat(posts).extracting(PostResponse::getTitle).containsExactly("Первый", "Третий");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findResponsesByCategoryNameAndAuthorUsernameUsesSingleStatement() {
+        List<PostResponse> posts = postRepository.findResponsesByCategoryNameAndAuthorUsername("spring", "bob");
+
+        assertThat(posts).extracting(PostResponse::getTitle).containsExactly("Четвертый");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findResponsesPageUsesSingleStatementPerPage() {
+        List<PostResponse> firstPage = postRepository.findResponsesPage(0L, Limit.of(3));
+        List<PostResponse> secondPage = postRepository.findResponsesPage(firstPage.get(2).getId(), Limit.of(3));
+
+        assertThat(firstPage).hasSize(3);
+        assertThat(secondPage).extracting(PostResponse::getTitle).containsExactly("Четвертый");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void findResponseByIdUsesSingleStatement() {
+        Long id = postRepository.findResponsesPage(0L, Limit.of(1)).get(0).getId();
+        statistics.clear();
+
+        PostResponse post = postRepository.findResponseById(id).orElseThrow();
+
+        assertThat(post.getAuthor().getEmail()).isEqualTo("alice@example.com");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findSummariesPageReturnsExcerptsInSingleStatement() {
+        List<PostSummaryResponse> posts = postRepository.findSummariesPageByCategoryName("spring", 0L, Limit.of(10));
+
+        assertThat(posts).extracting(PostSummaryResponse::getExcerpt).containsExactly("Контент: Третий", "Контент: Четвертый");
+        assertThat(posts).extracting(post -> post.getAuthor().getUsername()).containsExactly("alice", "bob");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void savingLoadedPostKeepsConcurrentLikeCountFlush() {
+        Long id = postRepository.findResponsesPage(0L, Limit.of(1)).get(0).getId();
+        Post post = postRepository.findById(id).orElseThrow();
+
+        //Между чтением и сохранением поста LikeCounter сбрасывает дельту лайков
+        postRepository.addToLikeCount(id, 5);
+
+        post.setTitle("Первый (исправлено)");
+        postRepository.saveAndFlush(post);
+        entityManager.clear();
+
+        assertThat(postRepository.findLikeCountById(id)).contains(5L);
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("password");
+        user.setRole(Role.AUTHOR);
+        return entityManager.persist(user);
+    }
+
+    private Category persistCategory(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return entityManager.persist(category);
+    }
+
+    private void persistPost(String title, User author, Category category) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent("Контент: " + title);
+        post.setExcerpt(Excerpts.of(post.getContent()));
+        post.setAuthor(author);
+        post.setCategory(category);
+        entityManager.persist(post);
+    }
+}
@@ -0,0 +1,240 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.umagadzhi.blogplatform.entities.Category;
+import ru.umagadzhi.blogplatform.entities.Comment;
+import ru.umagadzhi.blogplatform.entities.Like;
+import ru.umagadzhi.blogplatform.entities.Post;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.enums.Role;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*Проверяем по EXPLAIN, что ни один запрос репозиториев не читает таблицу целиком (Seq Scan).
+Схема создается миграциями Flyway на PostgreSQL в Docker. SQL, который выполняет Hibernate, перехватывается
+и разбирается через EXPLAIN (GENERIC_PLAN) с enable_seqscan = off: планировщик выбирает индекс, если он есть,
+поэтому Seq Scan в плане означает, что подходящего индекса нет.
+Исключение — PostRepository.reconcileLikeCounts: ночная сверка по всей таблице likes.*/
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.umagadzhi.blogplatform.repository.QueryPlanTest$SqlCapture")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+//LikeIdAllocator нужен LikeRepositoryImpl, а срез @DataJpaTest не сканирует обычные компоненты
+@Import(LikeIdAllocator.class)
+class QueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private LikeRepository likeRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("password");
+        user.setRole(Role.AUTHOR);
+        entityManager.persist(user);
+
+        Category category = new Category();
+        category.setName("java");
+        entityManager.persist(category);
+
+        post = new Post();
+        post.setTitle("Индексы");
+        post.setContent("Каждый запрос должен идти по индексу");
+        post.setAuthor(user);
+        post.setCategory(category);
+        entityManager.persist(post);
+
+        Comment comment = new Comment();
+        comment.setContent("Согласен");
+        comment.setPost(post);
+        comment.setAuthor(user);
+        entityManager.persist(comment);
+
+        Like like = new Like();
+        like.setPost(post);
+        like.setUser(user);
+        entityManager.persist(like);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void userQueriesUseIndexes() {
+        assertNoSequentialScans(() -> userRepository.findByUsername("alice"));
+        assertNoSequentialScans(() -> userRepository.findByEmail("alice@example.com"));
+        assertNoSequentialScans(() -> userRepository.findRevokedTokenVersions());
+    }
+
+    @Test
+    void categoryQueriesUseIndexes() {
+        assertNoSequentialScans(() -> categoryRepository.findByName("java"));
+    }
+
+    @Test
+    void postQueriesUseIndexes() {
+        Long id = post.getId();
+        assertNoSequentialScans(() -> postRepository.findResponseById(id));
+        assertNoSequentialScans(() -> postRepository.findResponsesByIdIn(List.of(id, id + 1)));
+        assertNoSequentialScans(() -> postRepository.findResponsesByAuthorUsername("alice"));
+        assertNoSequentialScans(() -> postRepository.findResponsesByCategoryName("java"));
+        assertNoSequentialScans(() -> postRepository.findResponsesByCategoryNameAndAuthorUsername("java", "alice"));
+        assertNoSequentialScans(() -> postRepository.findResponsesPage(0L, Limit.of(50)));
+        assertNoSequentialScans(() -> postRepository.findResponsesPageByCategoryName("java", 0L, Limit.of(50)));
+        assertNoSequentialScans(() -> postRepository.findResponsesPageByAuthorUsername("alice", 0L, Limit.of(50)));
+        assertNoSequentialScans(() -> postRepository.findResponsesPageByCategoryNameAndAuthorUsername("java", "alice", 0L, Limit.of(50)));
+        assertNoSequentialScans(() -> postRepository.findSummariesByIdIn(List.of(id, id + 1)));
+        assertNoSequentialScans(() -> postRepository.findSummariesPage(0L, Limit.of(50)));
+        assertNoSequentialScans(() -> postRepository.findSummariesPageByCategoryName("java", 0L, Limit.of(50)));
+        assertNoSequentialScans(() -> postRepository.findSummariesPageByAuthorUsername("alice", 0L, Limit.of(50)));
+        assertNoSequentialScans(() -> postRepository.findSummariesPageByCategoryNameAndAuthorUsername("java", "alice", 0L, Limit.of(50)));
+        assertNoSequentialScans(() -> postRepository.searchIds("индекс", 20, 0));
+        assertNoSequentialScans(() -> postRepository.findCategoryIdById(id));
+        assertNoSequentialScans(() -> postRepository.findLikeCountById(id));
+        assertNoSequentialScans(() -> postRepository.findLikeCountsByIdIn(List.of(id)));
+        assertNoSequentialScans(() -> postRepository.findVersionById(id));
+        assertNoSequentialScans(() -> postRepository.addToLikeCount(id, 1));
+        assertNoSequentialScans(() -> postRepository.findExistingIds(List.of(id)));
+        assertNoSequentialScans(() -> postRepository.findRecentIdsByAuthorIdIn(List.of(user.getId()), Limit.of(500)));
+        assertNoSequentialScans(() -> postRepository.findRecentIdsByCategoryIdIn(List.of(post.getCategory().getId()), Limit.of(500)));
+    }
+
+    @Test
+    void followQueriesUseIndexes() {
+        assertNoSequentialScans(FollowRepository.FOLLOW_AUTHOR_SQL);
+        assertNoSequentialScans(FollowRepository.UNFOLLOW_AUTHOR_SQL);
+        assertNoSequentialScans(FollowRepository.FOLLOW_CATEGORY_SQL);
+        assertNoSequentialScans(FollowRepository.UNFOLLOW_CATEGORY_SQL);
+        assertNoSequentialScans(FollowRepository.FOLLOWED_AUTHOR_IDS_SQL);
+        assertNoSequentialScans(FollowRepository.FOLLOWED_CATEGORY_IDS_SQL);
+        assertNoSequentialScans(FollowRepository.POST_FOLLOWER_IDS_SQL);
+        assertNoSequentialScans(FollowRepository.CATEGORY_FOLLOWER_IDS_SQL);
+        assertNoSequentialScans(FollowRepository.POPULAR_AUTHOR_IDS_SQL);
+    }
+
+    @Test
+    void commentQueriesUseIndexes() {
+        Post postReference = entityManager.find(Post.class, post.getId());
+        assertNoSequentialScans(() -> commentRepository.findResponsesPageByPostId(post.getId(), 0L, Limit.of(20)));
+        assertNoSequentialScans(() -> commentRepository.findFirstCommentsByPostIds(List.of(post.getId()), 3));
+        assertNoSequentialScans(() -> commentRepository.findByPost(postReference));
+        assertNoSequentialScans(() -> commentRepository.findResponsesByIdIn(List.of(1L, 2L)));
+        assertNoSequentialScans(() -> commentRepository.findVersionById(1L));
+    }
+
+    @Test
+    void likeQueriesUseIndexes() {
+        Post postReference = entityManager.find(Post.class, post.getId());
+        assertNoSequentialScans(() -> likeRepository.findByPost(postReference));
+        assertNoSequentialScans(() -> likeRepository.countByPost(postReference));
+
+        //Запросы LikeRepositoryImpl идут через JdbcTemplate мимо Hibernate, их планы проверяем напрямую
+        assertNoSequentialScans(LikeRepositoryImpl.UPSERT_LIKE_SQL);
+        assertNoSequentialScans(LikeRepositoryImpl.SELECT_LIKE_SQL);
+        assertNoSequentialScans(LikeRepositoryImpl.DELETE_LIKE_SQL);
+    }
+
+    @Test
+    void revokedTokenQueriesUseIndexes() {
+        assertNoSequentialScans(() -> revokedTokenRepository.findByExpiresAtAfter(Instant.now()));
+        assertNoSequentialScans(() -> revokedTokenRepository.deleteExpired(Instant.now()));
+    }
+
+    //Выполняет вызов репозитория и проверяет планы всех SQL-запросов, которые он отправил в БД
+    private void assertNoSequentialScans(Runnable repositoryCall) {
+        SqlCapture.STATEMENTS.clear();
+        repositoryCall.run();
+        List<String> statements = new ArrayList<>(SqlCapture.STATEMENTS);
+
+        assertThat(statements).isNotEmpty();
+        statements.forEach(this::assertNoSequentialScans);
+    }
+
+    private void assertNoSequentialScans(String sql) {
+        assertThat(explain(sql))
+                .as("План запроса: %s", sql)
+                .noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    private List<String> explain(String sql) {
+        return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("set local enable_seqscan = off");
+
+                List<String> plan = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery("explain (generic_plan) " + numberParameters(sql))) {
+                    while (resultSet.next()) {
+                        plan.add(resultSet.getString(1));
+                    }
+                }
+                return plan;
+            }
+        });
+    }
+
+    //JDBC-параметры "?" в параметры PostgreSQL $1, $2, ... (EXPLAIN GENERIC_PLAN строит план без значений)
+    private static String numberParameters(String sql) {
+        StringBuilder result = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                result.append('$').append(++parameter);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    //Запоминает SQL, который Hibernate отправляет в БД
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.umagadzhi.blogplatform.repository;
+
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import ru.umagadzhi.blogplatform.dto.CommentResponse;
+import ru.umagadzhi.blogplatform.dto.PostResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Потоковое чтение через R2DBC на встроенной H2 (без Docker): keyset-страницы, фильтры, склейка страниц в один поток
+class ReactivePostRepositoryTest {
+
+    private DatabaseClient databaseClient;
+    private ReactivePostRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        //Отдельная БД в памяти на каждый тест
+        databaseClient = DatabaseClient.create(ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        repository = new ReactivePostRepository(databaseClient);
+
+        execute("create table users (id bigint primary key, username varchar(255), email varchar(255))");
+        execute("create table categories (id bigint primary key, name varchar(255))");
+        execute("create table posts (id bigint primary key, title varchar(255), content varchar(255), author_id bigint, category_id bigint)");
+        execute("create table comments (id bigint primary key, content varchar(255), post_id bigint, author_id bigint)");
+
+        execute("insert into users values (1, 'alice', 'alice@example.com'), (2, 'bob', 'bob@example.com')");
+        execute("insert into categories values (1, 'java'), (2, 'go')");
+        for (int id = 1; id <= 25; id++) {
+            execute("insert into posts values (" + id + ", 'Пост " + id + "', 'Текст', " + (id % 2 + 1) + ", " + (id % 5 == 0 ? 2 : 1) + ")");
+        }
+        for (int id = 1; id <= 7; id++) {
+            execute("insert into comments values (" + id + ", 'Комментарий " + id + "', 3, 1)");
+        }
+    }
+
+    @Test
+    void findPostsPageReturnsPostsAfterCursorInIdOrder() {
+        List<PostResponse> page = repository.findPostsPage(null, null, 10, 5).collectList().block();
+
+        assertThat(page).extracting(PostResponse::getId).containsExactly(11L, 12L, 13L, 14L, 15L);
+        assertThat(page.get(0).getAuthor().getUsername()).isEqualTo("bob");
+        assertThat(page.get(0).getCategory().getName()).isEqualTo("java");
+    }
+
+    @Test
+    void findPostsPageAppliesFilters() {
+        List<PostResponse> page = repository.findPostsPage("go", "bob", 0, 100).collectList().block();
+
+        assertThat(page).extracting(PostResponse::getId).containsExactly(5L, 15L, 25L);
+    }
+
+    @Test
+    void streamPostsReadsAllPages() {
+        List<Long> ids = repository.streamPosts(null, null, 10).map(PostResponse::getId).collectList().block();
+
+        assertThat(ids).hasSize(25).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void streamCommentsReadsAllPagesOfPost() {
+        List<CommentResponse> comments = repository.streamComments(3L, 3).collectList().block();
+
+        assertThat(comments).extracting(CommentResponse::getId).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+        assertThat(comments.get(0).getAuthor().getUsername()).isEqualTo("alice");
+    }
+
+    @Test
+    void streamPostsStopsWhenClientCancels() {
+        //Клиент забрал 3 поста и отменил подписку — поток завершается без чтения остальных страниц
+        List<Long> ids = repository.streamPosts(null, null, 10).take(3).map(PostResponse::getId).collectList().block();
+
+        assertThat(ids).containsExactly(1L, 2L, 3L);
+    }
+
+    private void execute(String sql) {
+        databaseClient.sql(sql).then().block();
+    }
+}
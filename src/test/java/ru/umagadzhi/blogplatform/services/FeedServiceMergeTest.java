@@ -0,0 +1,37 @@
+package ru.umagadzhi.blogplatform.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Слияние ленты из рассылки с постами знаменитостей, которые читаются отдельно
+class FeedServiceMergeTest {
+
+    @Test
+    void mergesDescendingWithoutDuplicates() {
+        long[] merged = FeedService.mergeDescending(new long[]{9, 7, 5, 3}, new long[]{8, 7, 3, 1}, 10);
+
+        assertThat(merged).containsExactly(9, 8, 7, 5, 3, 1);
+    }
+
+    @Test
+    void stopsAtLimit() {
+        long[] merged = FeedService.mergeDescending(new long[]{9, 7, 5}, new long[]{8, 6, 4}, 4);
+
+        assertThat(merged).containsExactly(9, 8, 7, 6);
+    }
+
+    @Test
+    void duplicatesDoNotCountTowardsLimit() {
+        long[] merged = FeedService.mergeDescending(new long[]{9, 8, 7}, new long[]{9, 8, 6}, 3);
+
+        assertThat(merged).containsExactly(9, 8, 7);
+    }
+
+    @Test
+    void mergesWithEmptyList() {
+        assertThat(FeedService.mergeDescending(new long[0], new long[]{3, 2}, 10)).containsExactly(3, 2);
+        assertThat(FeedService.mergeDescending(new long[]{3, 2}, new long[0], 10)).containsExactly(3, 2);
+        assertThat(FeedService.mergeDescending(new long[0], new long[0], 10)).isEmpty();
+    }
+}
@@ -0,0 +1,163 @@
+package ru.umagadzhi.blogplatform.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.umagadzhi.blogplatform.events.LikeChangedEvent;
+import ru.umagadzhi.blogplatform.repository.PostRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//Дельты лайков не теряются и не учитываются дважды: при гонках со сбросом, при ошибке записи и при сверке
+class LikeCounterTest {
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    //Сумма всех дельт, записанных в posts.like_count, по постам
+    private final Map<Long, Long> stored = new ConcurrentHashMap<>();
+
+    private LikeCounter likeCounter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        when(postRepository.addToLikeCount(anyLong(), anyLong())).thenAnswer(invocation -> {
+            stored.merge(invocation.getArgument(0), invocation.getArgument(1), Long::sum);
+            return 1;
+        });
+
+        likeCounter = new LikeCounter(postRepository, transactionTemplate);
+    }
+
+    @Test
+    void concurrentLikesAndFlushesLoseNothing() throws Exception {
+        int threads = 8;
+        int iterations = 20_000;
+        int posts = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        try {
+            //Сброс идет непрерывно: пустые дельты постоянно удаляются из карты, пока в них добавляют
+            Future<?> flusher = executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    likeCounter.flush();
+                }
+                return null;
+            });
+
+            Future<?>[] likers = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                likers[t] = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        long postId = i % posts;
+                        //Лайк и его снятие: дельта поста часто возвращается к нулю
+                        likeCounter.onLikeChanged(new LikeChangedEvent(postId, 1));
+                        likeCounter.onLikeChanged(new LikeChangedEvent(postId, -1));
+                        likeCounter.onLikeChanged(new LikeChangedEvent(postId, 1));
+                    }
+                    return null;
+                });
+            }
+
+            start.countDown();
+            for (Future<?> liker : likers) {
+                liker.get(1, TimeUnit.MINUTES);
+            }
+            running.set(false);
+            flusher.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        likeCounter.flush();
+
+        long expectedPerPost = (long) threads * iterations / posts;
+        for (long postId = 0; postId < posts; postId++) {
+            assertThat(stored.getOrDefault(postId, 0L)).as("Пост %d", postId).isEqualTo(expectedPerPost);
+            assertThat(likeCounter.pendingDelta(postId)).isZero();
+        }
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForNextFlush() {
+        likeCounter.onLikeChanged(new LikeChangedEvent(1L, 1));
+        likeCounter.onLikeChanged(new LikeChangedEvent(1L, 1));
+        doThrow(new DataAccessResourceFailureException("БД недоступна"))
+                .doAnswer(invocation -> {
+                    stored.merge(invocation.getArgument(0), invocation.getArgument(1), Long::sum);
+                    return 1;
+                })
+                .when(postRepository).addToLikeCount(anyLong(), anyLong());
+
+        likeCounter.flush();
+
+        assertThat(stored).isEmpty();
+        assertThat(likeCounter.pendingDelta(1L)).isEqualTo(2);
+
+        likeCounter.flush();
+
+        assertThat(stored).containsEntry(1L, 2L);
+        assertThat(likeCounter.pendingDelta(1L)).isZero();
+    }
+
+    @Test
+    void reconcileSubtractsDeltasThatAreStillPending() {
+        likeCounter.onLikeChanged(new LikeChangedEvent(1L, 1));
+        //Еще один лайк приходит во время сброса внутри сверки: его строка уже в likes, а дельта еще не сброшена
+        doAnswer(invocation -> {
+            if (stored.isEmpty()) {
+                likeCounter.onLikeChanged(new LikeChangedEvent(1L, 1));
+            }
+            stored.merge(invocation.getArgument(0), invocation.getArgument(1), Long::sum);
+            return 1;
+        }).when(postRepository).addToLikeCount(anyLong(), anyLong());
+
+        likeCounter.reconcile();
+
+        //like_count = count(*) минус несброшенная дельта; сама дельта остается и будет записана следующим сбросом
+        InOrder order = inOrder(postRepository);
+        order.verify(postRepository).addToLikeCount(1L, 1L);
+        order.verify(postRepository).reconcileLikeCounts();
+        order.verify(postRepository).addToLikeCount(1L, -1L);
+        assertThat(likeCounter.pendingDelta(1L)).isEqualTo(1);
+
+        likeCounter.flush();
+
+        verify(postRepository, times(2)).addToLikeCount(1L, 1L);
+        assertThat(likeCounter.pendingDelta(1L)).isZero();
+    }
+}
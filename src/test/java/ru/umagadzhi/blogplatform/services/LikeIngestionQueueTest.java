@@ -0,0 +1,74 @@
+package ru.umagadzhi.blogplatform.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import ru.umagadzhi.blogplatform.dto.LikeRequest;
+import ru.umagadzhi.blogplatform.events.LikeChangedEvent;
+import ru.umagadzhi.blogplatform.repository.LikeIdAllocator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//Недоступность БД при сбросе не должна терять лайки, уже подтвержденные клиенту (ACCEPTED)
+class LikeIngestionQueueTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    //Размеры пачек, переданных в batchUpdate (список пачки переиспользуется, поэтому копируем в момент вызова)
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    private LikeIngestionQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new LikeIngestionQueue(jdbcTemplate, mock(LikeIdAllocator.class), eventPublisher, true, 100, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchIsRetriedOnNextFlush() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new CannotGetJdbcConnectionException("Пул соединений исчерпан"))
+                .thenAnswer(invocation -> {
+                    int size = invocation.<Collection<?>>getArgument(1).size();
+                    batchSizes.add(size);
+                    int[] counts = new int[size];
+                    Arrays.fill(counts, 1);
+                    return new int[][]{counts};
+                });
+
+        assertThat(queue.offer(new LikeRequest(1L, 10L))).isEqualTo(LikeIngestionQueue.Result.ACCEPTED);
+        assertThat(queue.offer(new LikeRequest(1L, 11L))).isEqualTo(LikeIngestionQueue.Result.ACCEPTED);
+        assertThat(queue.offer(new LikeRequest(2L, 10L))).isEqualTo(LikeIngestionQueue.Result.ACCEPTED);
+
+        queue.flush();
+
+        //Пачка не записана: лайки все еще ждут записи, повторный клик не ставит их второй раз
+        verify(eventPublisher, never()).publishEvent(any(LikeChangedEvent.class));
+        assertThat(queue.offer(new LikeRequest(1L, 10L))).isEqualTo(LikeIngestionQueue.Result.DUPLICATE);
+        assertThat(queue.offer(new LikeRequest(2L, 10L))).isEqualTo(LikeIngestionQueue.Result.DUPLICATE);
+
+        queue.flush();
+
+        //Сначала повторяется неудавшаяся пачка, затем разбирается остаток очереди
+        assertThat(batchSizes).containsExactly(2, 1);
+        verify(eventPublisher).publishEvent(new LikeChangedEvent(2L, 1));
+        assertThat(queue.offer(new LikeRequest(1L, 10L))).isEqualTo(LikeIngestionQueue.Result.ACCEPTED);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.umagadzhi.blogplatform.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.umagadzhi.blogplatform.dto.TokenResponse;
+import ru.umagadzhi.blogplatform.entities.User;
+import ru.umagadzhi.blogplatform.enums.Role;
+import ru.umagadzhi.blogplatform.jwt.JwtAuthenticationCache;
+import ru.umagadzhi.blogplatform.jwt.JwtKeyRing;
+import ru.umagadzhi.blogplatform.jwt.JwtUtil;
+import ru.umagadzhi.blogplatform.jwt.TokenDenylist;
+import ru.umagadzhi.blogplatform.jwt.TokenVersionRegistry;
+import ru.umagadzhi.blogplatform.repository.RevokedTokenRepository;
+import ru.umagadzhi.blogplatform.repository.UserRepository;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//Refresh-токен одноразовый: повторное использование (на этом или на другом узле) не дает новой пары
+class TokenServiceTest {
+
+    private final RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+    //Строки таблицы revoked_tokens: уникальный ключ пропускает только первую вставку
+    private final Set<String> revokedInDatabase = ConcurrentHashMap.newKeySet();
+
+    private JwtUtil jwtUtil;
+    private TokenService tokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        when(revokedTokenRepository.insertIfAbsent(anyString(), any()))
+                .thenAnswer(invocation -> revokedInDatabase.add(invocation.getArgument(0)) ? 1 : 0);
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("password");
+        user.setRole(Role.AUTHOR);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        TokenVersionRegistry tokenVersionRegistry = mock(TokenVersionRegistry.class);
+        when(tokenVersionRegistry.isCurrent(anyLong(), anyInt())).thenReturn(true);
+
+        jwtUtil = new JwtUtil(new JwtKeyRing("", ""), 900_000, 1_209_600_000);
+        tokenService = new TokenService(jwtUtil, userRepository, tokenVersionRegistry,
+                new TokenDenylist(revokedTokenRepository, 1000), new JwtAuthenticationCache(1000, 300_000));
+    }
+
+    @Test
+    void refreshTokenWorksOnlyOnce() {
+        String refreshToken = jwtUtil.generateRefreshToken(user);
+
+        TokenResponse first = tokenService.refresh(refreshToken);
+        TokenResponse second = tokenService.refresh(refreshToken);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNull();
+        //Новый refresh-токен из первой пары при этом действует
+        assertThat(tokenService.refresh(first.refreshToken())).isNotNull();
+    }
+
+    @Test
+    void refreshTokenUsedOnAnotherNodeIsRejected() {
+        String refreshToken = jwtUtil.generateRefreshToken(user);
+        //Другой узел уже обменял токен: отзыв есть в БД, но локальный список о нем еще не знает
+        revokedInDatabase.add(jwtUtil.parseRefreshClaims(refreshToken).getId());
+
+        assertThat(tokenService.refresh(refreshToken)).isNull();
+    }
+
+    @Test
+    void revokedRefreshTokenIsRejected() {
+        String refreshToken = jwtUtil.generateRefreshToken(user);
+
+        tokenService.revoke(refreshToken);
+
+        assertThat(tokenService.refresh(refreshToken)).isNull();
+    }
+
+    @Test
+    void accessTokenCannotBeUsedAsRefreshToken() {
+        assertThat(tokenService.refresh(jwtUtil.generateToken(user))).isNull();
+    }
+}
@@ -0,0 +1,56 @@
+package ru.umagadzhi.blogplatform.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Фильтр не теряет добавленные значения (иначе отозванный токен прошел бы проверку), а ложных срабатываний мало
+class BloomFilterTest {
+
+    @Test
+    void addedValuesAreAlwaysFound() {
+        int count = 100_000;
+        BloomFilter filter = new BloomFilter(count, 0.01);
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = UUID.randomUUID().toString();
+            filter.put(values[i]);
+        }
+
+        for (String value : values) {
+            assertThat(filter.mightContain(value)).as(value).isTrue();
+        }
+    }
+
+    @Test
+    void filterOverfilledBeyondExpectedSizeStillFindsAddedValues() {
+        BloomFilter filter = new BloomFilter(10, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("token-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("token-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfigured() {
+        int count = 100_000;
+        BloomFilter filter = new BloomFilter(count, 0.01);
+        for (int i = 0; i < count; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < count; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        //Запас вдвое: доля случайна, а оценка размера фильтра приближенная
+        assertThat(falsePositives).isLessThan(count * 2 / 100);
+    }
+}
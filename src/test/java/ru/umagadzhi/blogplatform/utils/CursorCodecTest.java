@@ -0,0 +1,45 @@
+package ru.umagadzhi.blogplatform.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+    @Test
+    void encodedCursorDecodesToSameId() {
+        assertThat(CursorCodec.decode(CursorCodec.encode(42L))).isEqualTo(42L);
+        assertThat(CursorCodec.decode(CursorCodec.encode(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertThat(CursorCodec.decode(null)).isZero();
+        assertThat(CursorCodec.decode("  ")).isZero();
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertRejected("не base64!");
+        assertRejected(encodeRaw("42")); //Без префикса
+        assertRejected(encodeRaw("post:42")); //Чужой префикс
+        assertRejected(encodeRaw("id:")); //Без id
+        assertRejected(encodeRaw("id:abc"));
+        assertRejected(encodeRaw("id:99999999999999999999")); //Не помещается в long
+    }
+
+    private static void assertRejected(String cursor) {
+        assertThatThrownBy(() -> CursorCodec.decode(cursor))
+                .as(cursor)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный курсор");
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.umagadzhi.blogplatform.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongRingBufferTest {
+
+    @Test
+    void newValuesEvictOldestAfterWraparound() {
+        LongRingBuffer buffer = new LongRingBuffer(3);
+        for (long value = 1; value <= 7; value++) {
+            buffer.add(value);
+        }
+
+        assertThat(buffer.size()).isEqualTo(3);
+        assertThat(buffer.valuesBelow(Long.MAX_VALUE, 10)).containsExactly(7, 6, 5);
+    }
+
+    @Test
+    void valuesBelowExcludesBoundAndRespectsLimit() {
+        LongRingBuffer buffer = LongRingBuffer.of(10, new long[]{10, 20, 30, 40, 50});
+
+        assertThat(buffer.valuesBelow(40, 10)).containsExactly(30, 20, 10);
+        assertThat(buffer.valuesBelow(40, 2)).containsExactly(30, 20);
+        assertThat(buffer.valuesBelow(10, 10)).isEmpty();
+        assertThat(buffer.valuesBelow(Long.MAX_VALUE, 0)).isEmpty();
+    }
+
+    @Test
+    void valuesAddedOutOfOrderAreReturnedDescending() {
+        LongRingBuffer buffer = LongRingBuffer.of(4, new long[]{5, 3, 9, 7});
+
+        assertThat(buffer.valuesBelow(9, 10)).containsExactly(7, 5, 3);
+    }
+
+    @Test
+    void ofKeepsOnlyNewestValuesThatFit() {
+        LongRingBuffer buffer = LongRingBuffer.of(2, new long[]{1, 2, 3});
+
+        assertThat(buffer.size()).isEqualTo(2);
+        assertThat(buffer.valuesBelow(Long.MAX_VALUE, 10)).containsExactly(3, 2);
+    }
+
+    @Test
+    void emptyBufferHasNoValues() {
+        assertThat(new LongRingBuffer(4).valuesBelow(Long.MAX_VALUE, 10)).isEmpty();
+    }
+
+    @Test
+    void capacityMustBePositive() {
+        assertThatThrownBy(() -> new LongRingBuffer(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}